@@ -0,0 +1,81 @@
+package pepse.bench;
+
+import danogl.GameObject;
+import danogl.collisions.Layer;
+import danogl.gui.ImageReader;
+import danogl.util.Vector2;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pepse.PepseGameManager;
+import pepse.headless.HeadlessWindowController;
+import pepse.headless.ScriptedInputListener;
+import pepse.util.SpriteCache;
+import pepse.world.Avatar;
+import pepse.world.Carrot;
+import pepse.world.Hud;
+import pepse.world.Terrain;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of a single frame of updates for a number of live carrots, and of the texts on the
+ * screen.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class CarrotUpdateBenchmark {
+    private static final Vector2 WINDOW_DIMENSIONS = new Vector2(1000, 700);
+    private static final float DELTA_TIME = 1 / 60f;
+    private static final int CARROT_LAYER = Layer.DEFAULT + 1;
+
+    @Param({"10", "100", "1000"})
+    private int carrotCount;
+    private GameObject[] carrots;
+    private Hud hud;
+
+    @Setup
+    public void setUp() {
+        HeadlessGameObjects gameObjects = new HeadlessGameObjects();
+        SpriteCache sprites = new SpriteCache(
+                new ImageReader(new HeadlessWindowController(WINDOW_DIMENSIONS)));
+        Avatar.loadSprites(sprites);
+        Terrain terrain = new Terrain(gameObjects, Layer.STATIC_OBJECTS, WINDOW_DIMENSIONS,
+                PepseGameManager.SEED);
+        Avatar avatar = Avatar.create(gameObjects, Layer.DEFAULT,
+                new Vector2(WINDOW_DIMENSIONS.x() / 2, terrain.groundHeightAt(WINDOW_DIMENSIONS.x() / 2)),
+                new ScriptedInputListener(""), sprites);
+        new Carrot(avatar, gameObjects, Vector2.ZERO, Vector2.ZERO, null, CARROT_LAYER, sprites);
+        hud = new Hud(gameObjects, avatar, WINDOW_DIMENSIONS);
+        Carrot.setGroundHeightAtFunc(terrain::groundHeightAt);
+        for (int i = 0; i < carrotCount; i++) {
+            Carrot.create();
+        }
+        List<GameObject> created = new ArrayList<>();
+        gameObjects.objectsInLayer(CARROT_LAYER).forEach(created::add);
+        carrots = created.toArray(new GameObject[0]);
+    }
+
+    @Benchmark
+    public GameObject[] updateAllCarrots() {
+        for (GameObject carrot : carrots) {
+            carrot.update(DELTA_TIME);
+        }
+        hud.update(DELTA_TIME);
+        return carrots;
+    }
+}
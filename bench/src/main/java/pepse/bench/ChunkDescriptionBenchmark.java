@@ -0,0 +1,102 @@
+package pepse.bench;
+
+import danogl.collisions.Layer;
+import danogl.util.Vector2;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import pepse.PepseGameManager;
+import pepse.world.ChunkPipeline;
+import pepse.world.Terrain;
+import pepse.world.TerrainChunk;
+import pepse.world.WorldCache;
+import pepse.world.trees.Tree;
+import pepse.world.trees.TreeChunk;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of describing a chunk on a worker: generating it from the noise and the seed,
+ * against viewing it in a WorldCache that holds it already. Every value of the chunk is read,
+ * as creating its columns does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ChunkDescriptionBenchmark {
+    private static final Vector2 WINDOW_DIMENSIONS = new Vector2(1280, 720);
+    private static final int CHUNKS = 256;
+    private static final int COLUMNS = ChunkPipeline.CHUNK_COLUMNS;
+    private static final int LEAVES_PER_TREE = 25;
+    private Terrain terrain;
+    private Tree tree;
+    private WorldCache cache;
+
+    @Setup
+    public void setUp() throws IOException {
+        HeadlessGameObjects gameObjects = new HeadlessGameObjects();
+        terrain = new Terrain(gameObjects, Layer.STATIC_OBJECTS, WINDOW_DIMENSIONS,
+                PepseGameManager.SEED, true);
+        tree = new Tree(gameObjects, Layer.BACKGROUND + 20, terrain::groundHeightAt);
+        tree.setSeed(PepseGameManager.SEED);
+        cache = new WorldCache(Files.createTempDirectory("pepse-bench-world"), PepseGameManager.SEED,
+                0, terrain.getChunkBytes(COLUMNS) + tree.getChunkBytes(COLUMNS));
+        for (int chunk = 0; chunk < CHUNKS; chunk++) {
+            ByteBuffer slot = cache.allocate(chunk);
+            terrain.describe(chunk * COLUMNS, COLUMNS).write(slot);
+            tree.describe(chunk * COLUMNS, COLUMNS).write(slot);
+            cache.publish(chunk);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNKS)
+    public void generate(Blackhole blackhole) {
+        for (int chunk = 0; chunk < CHUNKS; chunk++) {
+            consume(blackhole, terrain.describe(chunk * COLUMNS, COLUMNS),
+                    tree.describe(chunk * COLUMNS, COLUMNS));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNKS)
+    public void viewCached(Blackhole blackhole) {
+        for (int chunk = 0; chunk < CHUNKS; chunk++) {
+            ByteBuffer slot = cache.find(chunk);
+            consume(blackhole, terrain.viewChunk(chunk * COLUMNS, COLUMNS, slot),
+                    tree.viewChunk(chunk * COLUMNS, COLUMNS, slot));
+        }
+    }
+
+    // reading every value of a chunk.
+    private static void consume(Blackhole blackhole, TerrainChunk terrainChunk, TreeChunk treeChunk) {
+        for (int i = 0; i < COLUMNS; i++) {
+            blackhole.consume(terrainChunk.getHeight(i));
+            blackhole.consume(terrainChunk.getShade(i, 0));
+            blackhole.consume(terrainChunk.getShade(i, 1));
+            if (treeChunk.hasTree(i)) {
+                blackhole.consume(treeChunk.getHeightChange(i));
+                for (int leaf = 0; leaf < LEAVES_PER_TREE; leaf++) {
+                    blackhole.consume(treeChunk.getLeafAnimationDelay(i, leaf));
+                    blackhole.consume(treeChunk.getLeafFallDelay(i, leaf));
+                    blackhole.consume(treeChunk.getLeafSeed(i, leaf));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package pepse.bench;
+
+import danogl.GameObject;
+import danogl.collisions.Layer;
+import danogl.util.Vector2;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pepse.world.Sky;
+import pepse.world.daynight.DayCycle;
+import pepse.world.daynight.Night;
+import pepse.world.daynight.Sun;
+import pepse.world.daynight.SunHalo;
+
+import java.awt.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single step of the day: moving the sun and its halo, darkening the night and tinting the
+ * sky (best run with -prof gc, a step should allocate nothing).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DayCycleBenchmark {
+    private static final Vector2 WINDOW_DIMENSIONS = new Vector2(1280, 720);
+    private static final float CYCLE_LENGTH = 30;
+    private static final float DELTA_TIME = 1 / 60f;
+    private DayCycle dayCycle;
+
+    @Setup
+    public void setUp() {
+        HeadlessGameObjects gameObjects = new HeadlessGameObjects();
+        GameObject sky = Sky.create(gameObjects, WINDOW_DIMENSIONS, Layer.BACKGROUND);
+        GameObject night = Night.create(gameObjects, Layer.FOREGROUND, WINDOW_DIMENSIONS);
+        GameObject sun = Sun.create(gameObjects, Layer.BACKGROUND + 1, WINDOW_DIMENSIONS);
+        GameObject sunHalo = SunHalo.create(gameObjects, Layer.BACKGROUND + 10, sun, Color.YELLOW);
+        dayCycle = new DayCycle(CYCLE_LENGTH, WINDOW_DIMENSIONS, sun, sunHalo, night, sky);
+    }
+
+    @Benchmark
+    public float step() {
+        dayCycle.update(DELTA_TIME);
+        return dayCycle.getTime();
+    }
+}
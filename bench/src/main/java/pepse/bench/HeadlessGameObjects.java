@@ -0,0 +1,73 @@
+package pepse.bench;
+
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * A stand-in for danogl's GameObjectCollection that only keeps the objects of every layer.
+ * Adding and removing take effect immediately and there is no collision handling, so the
+ * benchmarks measure the game code rather than danogl's layer bookkeeping.
+ */
+public class HeadlessGameObjects extends GameObjectCollection {
+    private final HashMap<Integer, LinkedHashSet<GameObject>> layers = new HashMap<>();
+    private int size;
+
+    @Override
+    public void addGameObject(GameObject gameObject, int layerId) {
+        if (layers.computeIfAbsent(layerId, layer -> new LinkedHashSet<>()).add(gameObject)) {
+            size++;
+        }
+    }
+
+    @Override
+    public boolean removeGameObject(GameObject gameObject, int layerId) {
+        LinkedHashSet<GameObject> layer = layers.get(layerId);
+        if (layer == null || !layer.remove(gameObject)) {
+            return false;
+        }
+        size--;
+        return true;
+    }
+
+    @Override
+    public Iterable<GameObject> objectsInLayer(int layerId) {
+        LinkedHashSet<GameObject> layer = layers.get(layerId);
+        return layer == null ? new ArrayList<>() : new ArrayList<>(layer);
+    }
+
+    @Override
+    public boolean isLayerEmpty(int layerId) {
+        LinkedHashSet<GameObject> layer = layers.get(layerId);
+        return layer == null || layer.isEmpty();
+    }
+
+    @Override
+    public Iterator<GameObject> iterator() {
+        List<GameObject> all = new ArrayList<>(size);
+        for (LinkedHashSet<GameObject> layer : layers.values()) {
+            all.addAll(layer);
+        }
+        return all.iterator();
+    }
+
+    @Override
+    public void update(float deltaTime) {
+    }
+
+    @Override
+    public void handleCollisions() {
+    }
+
+    /**
+     * @return The number of objects in all the layers.
+     */
+    public int size() {
+        return size;
+    }
+}
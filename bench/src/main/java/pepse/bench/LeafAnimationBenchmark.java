@@ -0,0 +1,57 @@
+package pepse.bench;
+
+import danogl.collisions.Layer;
+import danogl.util.Vector2;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pepse.PepseGameManager;
+import pepse.world.Terrain;
+import pepse.world.trees.Tree;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single frame of leaf animation (wind, falling and respawning) for forests of several
+ * widths (in pixels), the cost should grow linearly with the number of trees.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LeafAnimationBenchmark {
+    private static final Vector2 WINDOW_DIMENSIONS = new Vector2(1000, 700);
+    private static final int TREE_LAYER = Layer.BACKGROUND + 20;
+    private static final float DELTA_TIME = 1 / 60f;
+
+    @Param({"1000", "3000", "7000"})
+    private int worldWidth;
+    private Tree tree;
+
+    @Setup
+    public void setUp() {
+        HeadlessGameObjects gameObjects = new HeadlessGameObjects();
+        Terrain terrain = new Terrain(gameObjects, Layer.STATIC_OBJECTS, WINDOW_DIMENSIONS,
+                PepseGameManager.SEED);
+        terrain.createInRange(0, worldWidth);
+        tree = new Tree(gameObjects, TREE_LAYER, terrain::groundHeightAt);
+        tree.setSeed(PepseGameManager.SEED);
+        tree.createInRange(0, worldWidth);
+    }
+
+    @Benchmark
+    public Tree animateLeaves() {
+        tree.update(DELTA_TIME);
+        return tree;
+    }
+}
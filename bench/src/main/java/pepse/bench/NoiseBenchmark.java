@@ -0,0 +1,66 @@
+package pepse.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import pepse.PepseGameManager;
+import pepse.util.FractalNoise1D;
+import pepse.util.NoiseGenerator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Noise throughput, in nanoseconds per sampled column.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NoiseBenchmark {
+    private static final int COLUMNS = 1024;
+    private static final int FIRST_COLUMN = -COLUMNS / 2;
+    private NoiseGenerator noiseGenerator;
+    private FractalNoise1D fractalNoise;
+    private float[] heights;
+
+    @Setup
+    public void setUp() {
+        noiseGenerator = new NoiseGenerator(Math.floor(PepseGameManager.SEED));
+        fractalNoise = new FractalNoise1D(PepseGameManager.SEED);
+        heights = new float[COLUMNS];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COLUMNS)
+    public void noiseGenerator(Blackhole blackhole) {
+        for (int x = FIRST_COLUMN; x < FIRST_COLUMN + COLUMNS; x++) {
+            blackhole.consume(noiseGenerator.noise(x));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COLUMNS)
+    public void fractalNoise(Blackhole blackhole) {
+        for (int x = FIRST_COLUMN; x < FIRST_COLUMN + COLUMNS; x++) {
+            blackhole.consume(fractalNoise.noise(x));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COLUMNS)
+    public float[] fractalNoiseFill() {
+        fractalNoise.fill(heights, FIRST_COLUMN, COLUMNS);
+        return heights;
+    }
+}
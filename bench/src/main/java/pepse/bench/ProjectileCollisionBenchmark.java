@@ -0,0 +1,100 @@
+package pepse.bench;
+
+import danogl.GameObject;
+import danogl.collisions.Layer;
+import danogl.util.Vector2;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pepse.world.Carrot;
+import pepse.world.FireBall;
+import pepse.world.ProjectileBroadphase;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single frame of fireBall - carrot collision checks with hundreds of both in flight, through
+ * the grid of ProjectileBroadphase and by testing every pair (as danogl does for two colliding
+ * layers). Plain game objects of the same sizes stand in for the carrots and fireBalls, so a hit
+ * removes nothing and every frame checks the same scene.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProjectileCollisionBenchmark {
+    private static final Vector2 AREA = new Vector2(5000, 700);
+    private static final Vector2 CARROT_DIMENSIONS = Vector2.ONES.mult(Carrot.CARROT_SIZE);
+    private static final Vector2 FIRE_BALL_DIMENSIONS = new Vector2(FireBall.SIZE * FireBall.WIDE_FACTOR,
+            FireBall.SIZE);
+    private static final int CARROT_LAYER = Layer.DEFAULT + 1;
+    private static final long SEED = 9;
+
+    @Param({"100", "500"})
+    private int carrotCount;
+    @Param({"100", "500"})
+    private int fireBallCount;
+    private GameObject[] carrots;
+    private GameObject[] fireBalls;
+    private ProjectileBroadphase broadphase;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(SEED);
+        HeadlessGameObjects gameObjects = new HeadlessGameObjects();
+        carrots = new GameObject[carrotCount];
+        for (int i = 0; i < carrotCount; i++) {
+            carrots[i] = new GameObject(randomLocation(random), CARROT_DIMENSIONS, null);
+            gameObjects.addGameObject(carrots[i], CARROT_LAYER);
+        }
+        fireBalls = new GameObject[fireBallCount];
+        for (int i = 0; i < fireBallCount; i++) {
+            fireBalls[i] = new GameObject(randomLocation(random), FIRE_BALL_DIMENSIONS, null);
+            gameObjects.addGameObject(fireBalls[i], FireBall.LAYER);
+        }
+        broadphase = new ProjectileBroadphase(gameObjects, CARROT_LAYER, FireBall.LAYER);
+    }
+
+    // a location uniformly spread over the area.
+    private static Vector2 randomLocation(Random random) {
+        return new Vector2(random.nextFloat() * AREA.x(), random.nextFloat() * AREA.y());
+    }
+
+    @Benchmark
+    public long grid() {
+        broadphase.handleCollisions();
+        return broadphase.getCandidatePairs();
+    }
+
+    @Benchmark
+    public int allPairs() {
+        int overlaps = 0;
+        for (GameObject fireBall : fireBalls) {
+            for (GameObject carrot : carrots) {
+                if (overlap(fireBall, carrot)) {
+                    overlaps++;
+                }
+            }
+        }
+        return overlaps;
+    }
+
+    // checks if the bounding boxes of two objects overlap.
+    private static boolean overlap(GameObject first, GameObject second) {
+        return first.getTopLeftCorner().x() < second.getTopLeftCorner().x() + second.getDimensions().x() &&
+                second.getTopLeftCorner().x() < first.getTopLeftCorner().x() + first.getDimensions().x() &&
+                first.getTopLeftCorner().y() < second.getTopLeftCorner().y() + second.getDimensions().y() &&
+                second.getTopLeftCorner().y() < first.getTopLeftCorner().y() + first.getDimensions().y();
+    }
+}
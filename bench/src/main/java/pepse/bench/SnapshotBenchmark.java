@@ -0,0 +1,78 @@
+package pepse.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pepse.HeadlessSimulation;
+import pepse.headless.ScriptedInputListener;
+
+import java.nio.ByteBuffer;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saving and loading a game after the avatar explored a number of columns of the world.
+ * Loading is a whole initializeGame from the snapshot, newGame is the same without one,
+ * so the difference between the two is the cost of restoring the snapshot.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Dpepse.worldCache="})
+public class SnapshotBenchmark {
+    private static final float DELTA_TIME = 1 / 60f;
+    private static final float COLUMNS_PER_SECOND = 10;
+    private static final String EMPTY_SCRIPT = "";
+
+    @Param({"0", "10000"})
+    private int exploredColumns;
+    private HeadlessSimulation simulation;
+    private ByteBuffer snapshot;
+
+    @Setup
+    public void setUp() {
+        String script = String.format(Locale.ROOT, "RIGHT:%f,CONTROL:3", exploredColumns / COLUMNS_PER_SECOND);
+        simulation = new HeadlessSimulation(new ScriptedInputListener(script), DELTA_TIME);
+        simulation.run();
+        snapshot = simulation.saveSnapshot();
+    }
+
+    @TearDown
+    public void tearDown() {
+        simulation.close();
+    }
+
+    @Benchmark
+    public ByteBuffer save() {
+        return simulation.saveSnapshot();
+    }
+
+    @Benchmark
+    public HeadlessSimulation load() {
+        return start(snapshot.duplicate());
+    }
+
+    @Benchmark
+    public HeadlessSimulation newGame() {
+        return start(null);
+    }
+
+    // initializing a game, and stopping its workers right away.
+    private static HeadlessSimulation start(ByteBuffer snapshot) {
+        HeadlessSimulation loaded = new HeadlessSimulation(new ScriptedInputListener(EMPTY_SCRIPT),
+                DELTA_TIME, snapshot);
+        loaded.close();
+        return loaded;
+    }
+}
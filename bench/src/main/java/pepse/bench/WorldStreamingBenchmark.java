@@ -0,0 +1,93 @@
+package pepse.bench;
+
+import danogl.collisions.Layer;
+import danogl.util.Vector2;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pepse.PepseGameManager;
+import pepse.world.Terrain;
+import pepse.world.trees.Tree;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creation and deletion of terrain and trees over worlds of several widths (in pixels).
+ * The cold benchmarks build a new world every time, the streaming ones delete the whole
+ * world and create it again, the way the avatar streams it while running. The widest world
+ * stays within the 256 columns (7680 pixels) the terrain and the trees hold at once.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorldStreamingBenchmark {
+    private static final Vector2 WINDOW_DIMENSIONS = new Vector2(1000, 700);
+    private static final int TREE_LAYER = Layer.BACKGROUND + 20;
+
+    @Param({"1000", "5000", "7000"})
+    private int worldWidth;
+    @Param({"false", "true"})
+    private boolean mergeBuriedBlocks;
+    private HeadlessGameObjects gameObjects;
+    private Terrain terrain;
+    private Tree tree;
+
+    @Setup
+    public void setUp() {
+        gameObjects = new HeadlessGameObjects();
+        terrain = newTerrain(gameObjects);
+        terrain.createInRange(0, worldWidth);
+        tree = newTree(gameObjects, terrain);
+        tree.createInRange(0, worldWidth);
+    }
+
+    @Benchmark
+    public int terrainCold() {
+        HeadlessGameObjects coldGameObjects = new HeadlessGameObjects();
+        newTerrain(coldGameObjects).createInRange(0, worldWidth);
+        return coldGameObjects.size();
+    }
+
+    @Benchmark
+    public int terrainStreaming() {
+        terrain.deleteInRange(0, worldWidth);
+        terrain.createInRange(0, worldWidth);
+        return gameObjects.size();
+    }
+
+    @Benchmark
+    public int treeCold() {
+        HeadlessGameObjects coldGameObjects = new HeadlessGameObjects();
+        newTree(coldGameObjects, terrain).createInRange(0, worldWidth);
+        return coldGameObjects.size();
+    }
+
+    @Benchmark
+    public int treeStreaming() {
+        tree.deleteInRange(0, worldWidth);
+        tree.createInRange(0, worldWidth);
+        return gameObjects.size();
+    }
+
+    private Terrain newTerrain(HeadlessGameObjects gameObjects) {
+        return new Terrain(gameObjects, Layer.STATIC_OBJECTS, WINDOW_DIMENSIONS, PepseGameManager.SEED,
+                mergeBuriedBlocks);
+    }
+
+    private static Tree newTree(HeadlessGameObjects gameObjects, Terrain terrain) {
+        Tree tree = new Tree(gameObjects, TREE_LAYER, terrain::groundHeightAt);
+        tree.setSeed(PepseGameManager.SEED);
+        return tree;
+    }
+}
@@ -0,0 +1,96 @@
+package pepse;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The binary format of a saved game (see PepseGameManager.saveSnapshot), and reading and
+ * writing it to files.
+ * A snapshot is a header (a magic number, the version of the format and the seed of the world)
+ * followed by the state of the game, written field by field through a little-endian ByteBuffer
+ * by the classes that own it: the time of day and the avatar's location, the avatar, the Hud,
+ * the carrots and the fireBalls. The world itself is not in the snapshot, it's a pure function
+ * of the seed (and is kept on disk by the WorldCache anyway), so the size of a snapshot does
+ * not grow with the explored world.
+ */
+public class GameSnapshot {
+    private static final int MAGIC = 0x50535631; // "PSV1"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 3 * Integer.BYTES;
+
+    /**
+     * @param stateBytes - The number of bytes of the state of the game.
+     * @param seed       - The seed of the world.
+     * @return A buffer for a snapshot, with its header already written.
+     */
+    static ByteBuffer allocate(int stateBytes, int seed) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + stateBytes).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putInt(FORMAT_VERSION);
+        buffer.putInt(seed);
+        return buffer;
+    }
+
+    /**
+     * Reads the header of a snapshot, leaving the buffer at the state of the game.
+     *
+     * @param buffer - A buffer holding a snapshot.
+     * @param seed   - The seed of the world the snapshot is restored into.
+     * @throws IllegalArgumentException if the buffer holds no snapshot of this version and world.
+     */
+    static void readHeader(ByteBuffer buffer, int seed) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("not a saved game");
+        }
+        int version = buffer.getInt();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("unsupported saved game version: " + version);
+        }
+        int savedSeed = buffer.getInt();
+        if (savedSeed != seed) {
+            throw new IllegalArgumentException("the game was saved in the world of seed " + savedSeed);
+        }
+    }
+
+    /**
+     * Writes a snapshot to a file, replacing it.
+     *
+     * @param snapshot - The snapshot, from its position to its limit.
+     * @param file     - The file.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(ByteBuffer snapshot, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer bytes = snapshot.duplicate();
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Reads a snapshot from a file.
+     *
+     * @param file - The file.
+     * @return A buffer of the snapshot, positioned at its start.
+     * @throws IOException if the file cannot be read.
+     */
+    public static ByteBuffer read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("saved game cut short: " + file);
+                }
+            }
+            return buffer.flip();
+        }
+    }
+}
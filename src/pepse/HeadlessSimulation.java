@@ -0,0 +1,230 @@
+package pepse;
+
+import com.sun.management.ThreadMXBean;
+import danogl.gui.ImageReader;
+import danogl.gui.SoundReader;
+import danogl.util.Vector2;
+import pepse.headless.HeadlessWindowController;
+import pepse.headless.ReplayInputListener;
+import pepse.headless.ScriptedInputListener;
+import pepse.headless.SteppedInputListener;
+import pepse.util.FrameProfiler;
+import pepse.util.ObjectPool;
+import pepse.world.Carrot;
+import pepse.world.FireBall;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.util.zip.CRC32;
+
+/**
+ * Runs the game without a window: the frame loop is stepped at a fixed deltaTime as fast as
+ * possible, while the avatar is driven by a ScriptedInputListener, or by the input a game
+ * recorded (see InputRecorder) replayed through a ReplayInputListener.
+ * Every simulated minute, and once the script ends, the frame times, the number of game
+ * objects and the allocation rate are printed, so world streaming can be measured on
+ * machines with no display (best run with -Djava.awt.headless=true). The run ends with a digest
+ * of the state of the game, replaying the same input on two builds should end with the same one,
+ * so their timings can be compared as the same simulation.
+ */
+public class HeadlessSimulation {
+    private static final String DEFAULT_SCRIPT = "RIGHT:600";
+    private static final float DEFAULT_DELTA_TIME = 1 / 60f;
+    private static final Vector2 WINDOW_DIMENSIONS = new Vector2(1280, 720);
+    private static final float REPORT_INTERVAL = 60;
+    private static final double NANOS_IN_MILLI = 1e6;
+    private static final double NANOS_IN_SECOND = 1e9;
+    private static final double BYTES_IN_KB = 1024;
+    private static final String REPORT_FORMAT = "%7.1fs | %6d frames | frame avg %.3fms max %.3fms" +
+            " | objects avg %d max %d | allocated %.1fKB/frame" +
+            " | streaming queue max %d, deferred %d frames | awake %d, asleep %d%n";
+    private static final String SPRITES_FORMAT = "sprite cache: %d hits, %d misses%n";
+    private static final String COLLISIONS_FORMAT = "fireball - carrot broadphase: %d candidate pairs%n";
+    private static final String SECTION_FORMAT = "%s: avg %.3fms/frame%n";
+    private static final String PERCENTILES_FORMAT = "frame p50 %.2fms p99 %.2fms (last %d frames)%n";
+    private static final double MEDIAN = 50;
+    private static final double TAIL = 99;
+    private static final String WORLD_CACHE_FORMAT = "world cache: %d chunks found, %d generated%n";
+    private static final String SNAPSHOT_FORMAT = "saved game: %d bytes in %.3fms, state digest %08x%n";
+    private static final String REPLAY_PREFIX = "@";
+    private static final String POOL_FORMAT = "%s pool: %d hits, %d misses, %d pooled%n";
+    private final SteppedInputListener inputListener;
+    private final float deltaTime;
+    private final PepseGameManager game;
+    private final ThreadMXBean threadBean;
+    private float simulatedTime;
+    private long intervalFrames;
+    private long intervalFrameNanos;
+    private long intervalMaxFrameNanos;
+    private long intervalObjects;
+    private int intervalMaxObjects;
+    private long intervalStartAllocatedBytes;
+    private int intervalMaxStreamingQueue;
+    private long intervalStartDeferredFrames;
+
+    /**
+     * Runs a headless simulation.
+     *
+     * @param args - optionally the input script (see ScriptedInputListener, defaults to running
+     *             right for 10 minutes) or @ followed by a file of recorded input, followed by
+     *             the deltaTime of a frame in seconds and by a saved game (see GameSnapshot) to
+     *             start from.
+     * @throws IOException if the recorded input or the saved game cannot be read.
+     */
+    public static void main(String[] args) throws IOException {
+        String script = args.length > 0 ? args[0] : DEFAULT_SCRIPT;
+        float deltaTime = args.length > 1 ? Float.parseFloat(args[1]) : DEFAULT_DELTA_TIME;
+        ByteBuffer snapshot = args.length > 2 ? GameSnapshot.read(Paths.get(args[2])) : null;
+        SteppedInputListener inputListener = script.startsWith(REPLAY_PREFIX) ?
+                ReplayInputListener.read(Paths.get(script.substring(REPLAY_PREFIX.length()))) :
+                new ScriptedInputListener(script);
+        new HeadlessSimulation(inputListener, deltaTime, snapshot).run();
+    }
+
+    /**
+     * constructor, initializes the game on a headless window.
+     *
+     * @param inputListener - The input that plays the game.
+     * @param deltaTime     - The time, in seconds, every frame advances the game by.
+     */
+    public HeadlessSimulation(SteppedInputListener inputListener, float deltaTime) {
+        this(inputListener, deltaTime, null);
+    }
+
+    /**
+     * constructor, initializes the game on a headless window.
+     *
+     * @param inputListener - The input that plays the game.
+     * @param deltaTime     - The time, in seconds, every frame advances the game by.
+     * @param snapshot      - A saved game to start from (see saveSnapshot), or null for a new game.
+     */
+    public HeadlessSimulation(SteppedInputListener inputListener, float deltaTime, ByteBuffer snapshot) {
+        this.inputListener = inputListener;
+        this.deltaTime = deltaTime;
+        this.threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        HeadlessWindowController windowController = new HeadlessWindowController(WINDOW_DIMENSIONS);
+        this.game = new PepseGameManager(true, snapshot);
+        game.initializeGame(new ImageReader(windowController), new SoundReader(windowController),
+                inputListener, windowController);
+    }
+
+    /**
+     * Steps the game until the input ends.
+     */
+    public void run() {
+        System.out.printf("replaying %.0fs of input at %.4fs per frame%n",
+                inputListener.getDuration(deltaTime), deltaTime);
+        startInterval();
+        long startNanos = System.nanoTime();
+        long frames = 0;
+        while (!inputListener.isFinished()) {
+            long frameStart = System.nanoTime();
+            game.update(deltaTime);
+            long frameNanos = System.nanoTime() - frameStart;
+            inputListener.advance(deltaTime);
+            recordFrame(frameNanos);
+            frames++;
+            if (intervalFrames * deltaTime >= REPORT_INTERVAL) {
+                report();
+                startInterval();
+            }
+        }
+        if (intervalFrames > 0) {
+            report();
+        }
+        System.out.printf("%d frames in %.1fs of wall time%n", frames,
+                (System.nanoTime() - startNanos) / NANOS_IN_SECOND);
+        reportPool("fireball", FireBall.getPool());
+        reportPool("carrot", Carrot.getPool());
+        System.out.printf(SPRITES_FORMAT, game.getSprites().getHits(), game.getSprites().getMisses());
+        System.out.printf(COLLISIONS_FORMAT, game.getProjectiles().getCandidatePairs());
+        if (game.getWorldCache() != null) {
+            System.out.printf(WORLD_CACHE_FORMAT, game.getWorldCache().getHits(),
+                    game.getWorldCache().getMisses());
+        }
+        reportProfile(game.getProfiler());
+        long saveStart = System.nanoTime();
+        ByteBuffer snapshot = saveSnapshot();
+        long saveNanos = System.nanoTime() - saveStart;
+        CRC32 digest = new CRC32();
+        digest.update(snapshot);
+        System.out.printf(SNAPSHOT_FORMAT, snapshot.limit(), saveNanos / NANOS_IN_MILLI, digest.getValue());
+    }
+
+    /**
+     * Saves the simulated game.
+     *
+     * @return A buffer of the saved game, see GameSnapshot.
+     */
+    public ByteBuffer saveSnapshot() {
+        return game.saveSnapshot();
+    }
+
+    /**
+     * Stops the background workers of the simulated game, it must not be stepped afterwards.
+     */
+    public void close() {
+        game.getWorld().shutdown();
+    }
+
+    // printing where the time of the frames went.
+    private static void reportProfile(FrameProfiler profiler) {
+        for (FrameProfiler.Section section : FrameProfiler.Section.values()) {
+            System.out.printf(SECTION_FORMAT, section.getLabel(),
+                    profiler.getAverageNanos(section) / NANOS_IN_MILLI);
+        }
+        System.out.printf(PERCENTILES_FORMAT,
+                profiler.getFrameTimes().percentile(MEDIAN) / NANOS_IN_MILLI,
+                profiler.getFrameTimes().percentile(TAIL) / NANOS_IN_MILLI,
+                profiler.getFrameTimes().getSampleCount());
+    }
+
+    // printing how many of the objects a pool handed out were reused.
+    private static void reportPool(String name, ObjectPool<?> pool) {
+        System.out.printf(POOL_FORMAT, name, pool.getHits(), pool.getMisses(), pool.size());
+    }
+
+    // adding a single frame to the statistics of the current interval.
+    private void recordFrame(long frameNanos) {
+        int objects = game.countGameObjects();
+        simulatedTime += deltaTime;
+        intervalFrames++;
+        intervalFrameNanos += frameNanos;
+        intervalMaxFrameNanos = Math.max(intervalMaxFrameNanos, frameNanos);
+        intervalObjects += objects;
+        intervalMaxObjects = Math.max(intervalMaxObjects, objects);
+        intervalMaxStreamingQueue = Math.max(intervalMaxStreamingQueue,
+                game.getWorld().getCreateQueueDepth() + game.getWorld().getEvictQueueDepth());
+    }
+
+    // printing the statistics of the current interval.
+    private void report() {
+        long allocatedBytes = allocatedBytes() - intervalStartAllocatedBytes;
+        System.out.printf(REPORT_FORMAT, simulatedTime, intervalFrames,
+                intervalFrameNanos / (intervalFrames * NANOS_IN_MILLI),
+                intervalMaxFrameNanos / NANOS_IN_MILLI,
+                intervalObjects / intervalFrames, intervalMaxObjects,
+                allocatedBytes / (intervalFrames * BYTES_IN_KB), intervalMaxStreamingQueue,
+                game.getWorld().getDeferredFrames() - intervalStartDeferredFrames,
+                game.getVisibility().getActiveCount(), game.getVisibility().getSleepingCount());
+    }
+
+    // resetting the statistics for a new interval.
+    private void startInterval() {
+        intervalFrames = 0;
+        intervalFrameNanos = 0;
+        intervalMaxFrameNanos = 0;
+        intervalObjects = 0;
+        intervalMaxObjects = 0;
+        intervalStartAllocatedBytes = allocatedBytes();
+        intervalMaxStreamingQueue = 0;
+        intervalStartDeferredFrames = game.getWorld().getDeferredFrames();
+    }
+
+    // the bytes allocated so far by the simulating thread.
+    private long allocatedBytes() {
+        return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
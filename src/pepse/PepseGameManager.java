@@ -2,6 +2,7 @@ package pepse;
 
 import danogl.GameManager;
 import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
 import danogl.collisions.Layer;
 import danogl.gui.ImageReader;
 import danogl.gui.SoundReader;
@@ -9,14 +10,23 @@ import danogl.gui.UserInputListener;
 import danogl.gui.WindowController;
 import danogl.gui.rendering.Camera;
 import danogl.util.Vector2;
+import pepse.headless.InputRecorder;
+import pepse.util.DebugOverlay;
+import pepse.util.FrameProfiler;
+import pepse.util.SpriteCache;
 import pepse.world.*;
+import pepse.world.daynight.DayCycle;
 import pepse.world.daynight.Night;
 import pepse.world.daynight.Sun;
 import pepse.world.daynight.SunHalo;
 import pepse.world.trees.Tree;
 
 import java.awt.*;
-import java.util.Random;
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.util.Arrays;
 
 /**
  * The main class of the simulator.
@@ -24,19 +34,79 @@ import java.util.Random;
 public class PepseGameManager extends GameManager {
     private static final int TERRAIN_BUFFER = 60;
     public static final int SEED = 9;
-    private static final Random mainRandom = new Random(SEED);
     private static final Color SUN_HALO_COLOR = new Color(255, 255, 0, 20);
     private static final int SUN_HALO_LAYER_OFFSET = 10;
     private static final int CYCLE_LENGTH = 30;
     private static final int TERRAIN_TOP_BLOCKS_LAYER_OFFSET = 21;
-    private static final int TREE_TRUNK_LAYER_OFFSET = 22;
+    private static final String HEADLESS_ARG = "--headless";
+    private static final String LOAD_ARG = "--load";
+    private static final String SAVE_FILE = "pepse.save";
+    private static final int SAVE_KEY = KeyEvent.VK_F5;
+    private static final float SIMULATION_STEP = 1 / 60f;
+    private static final int MAX_STEPS_PER_FRAME = 5;
+    private static final int CHUNK_WORKERS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private static final int STREAMING_OBJECT_BUDGET = 64;
+    private static final long STREAMING_TIME_BUDGET_NANOS = 1_000_000;
+    private static final float VIEW_MARGIN = 4 * Block.SIZE;
+    private static final String WORLD_CACHE_PROPERTY = "pepse.worldCache";
+    private static final String RECORD_INPUT_PROPERTY = "pepse.recordInput";
+    private final boolean isHeadless;
+    private ByteBuffer snapshot;
+    private SpriteCache sprites;
+    private ChunkPipeline world;
+    private Tree tree;
+    private ProjectileBroadphase projectiles;
+    private Camera camera;
+    private VisibilityManager visibility;
+    private FrameProfiler profiler;
+    private Hud hud;
+    private WorldCache worldCache;
+    private Avatar avatar;
+    private DayCycle dayCycle;
+    private float savedDayTime;
+    private UserInputListener inputListener;
+    private boolean wasSaveKeyPressed;
+    private float unsimulatedTime;
+    private Vector2 previousAvatarTopLeft;
+    private InputRecorder inputRecorder;
+
+    /**
+     * constructor, of a game played in a window.
+     */
+    public PepseGameManager() {
+        this(false, null);
+    }
+
+    /**
+     * constructor.
+     *
+     * @param isHeadless - true if the game runs without a window (see HeadlessSimulation), in which
+     *                   case there is no GUI for danogl to attach the mouse or the camera to.
+     * @param snapshot   - A saved game (see saveSnapshot) the game starts from, or null to start a
+     *                   new one. Only the first initialization restores it, a reset starts anew.
+     */
+    PepseGameManager(boolean isHeadless, ByteBuffer snapshot) {
+        this.isHeadless = isHeadless;
+        this.snapshot = snapshot;
+    }
 
     /**
      * Runs the entire simulation.
      *
-     * @param args - not in use.
+     * @param args - empty to play in a window, --load followed by a file saved with F5 to play it
+     *             on, or --headless followed by the arguments of HeadlessSimulation to run a
+     *             scripted simulation without one.
+     * @throws IOException if the saved game cannot be read.
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals(HEADLESS_ARG)) {
+            HeadlessSimulation.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 1 && args[0].equals(LOAD_ARG)) {
+            new PepseGameManager(false, GameSnapshot.read(Paths.get(args[1]))).run();
+            return;
+        }
         new PepseGameManager().run();
     }
 
@@ -58,76 +128,356 @@ public class PepseGameManager extends GameManager {
     @Override
     public void initializeGame(ImageReader imageReader, SoundReader soundReader,
                                UserInputListener inputListener, WindowController windowController) {
-        super.initializeGame(imageReader, soundReader, inputListener, windowController);
+        if (isHeadless) {
+            setGameObjectsCollection(new GameObjectCollection());
+        } else {
+            super.initializeGame(imageReader, soundReader, inputListener, windowController);
+        }
+
+        if (world != null) { // a reset, the workers of the previous world are no longer needed
+            world.shutdown();
+        }
+        inputListener = setUpInputRecorder(inputListener);
+        this.inputListener = inputListener;
+        this.unsimulatedTime = 0;
 
-        Terrain terrain = setUpBackGround(windowController);
+        // sprites (read ahead, so the first jump or shot doesn't stall)
+        sprites = new SpriteCache(imageReader);
+        Avatar.loadSprites(sprites);
+        FireBall.loadSprites(sprites);
+        Carrot.loadSprites(sprites);
 
-        Vector2 initialAvatarLocation = new Vector2(windowController.getWindowDimensions().x() / 2,
-                terrain.groundHeightAt(windowController.getWindowDimensions().x() / 2) - Block.SIZE);
+        // the world is created around the middle of the window, or where the saved game left the avatar
+        float windowWidth = windowController.getWindowDimensions().x();
+        Vector2 savedAvatarLocation = snapshot == null ? null : readSnapshotHeader();
+        float viewLeft = savedAvatarLocation == null ? 0 : savedAvatarLocation.x() - windowWidth / 2;
 
-        Avatar avatar = setUpActiveElements(imageReader, inputListener, windowController, terrain,
-                initialAvatarLocation);
+        Terrain terrain = setUpBackGround(windowController, viewLeft);
+
+        Vector2 initialAvatarLocation = new Vector2(windowWidth / 2,
+                terrain.groundHeightAt(windowWidth / 2) - Avatar.AVATAR_HEIGHT);
+
+        avatar = setUpActiveElements(inputListener, windowController, terrain,
+                savedAvatarLocation == null ? initialAvatarLocation : savedAvatarLocation, viewLeft);
+
+        generalSettings(inputListener, windowController, initialAvatarLocation, avatar);
+
+        if (snapshot != null) {
+            restoreSnapshot();
+        }
+        previousAvatarTopLeft = avatar.getTopLeftCorner();
+    }
+
+    /**
+     * Saves the game: the time of day, the avatar, the score and the round, and the flying
+     * carrots and fireBalls. The world is not saved, it's a pure function of the seed.
+     *
+     * @return A buffer of the saved game, from its position to its limit, see GameSnapshot.
+     */
+    ByteBuffer saveSnapshot() {
+        int stateBytes = 3 * Float.BYTES + avatar.getStateBytes() + hud.getStateBytes() +
+                Carrot.getStateBytes() + FireBall.getStateBytes(gameObjects());
+        ByteBuffer buffer = GameSnapshot.allocate(stateBytes, SEED);
+        buffer.putFloat(dayCycle.getTime());
+        buffer.putFloat(avatar.getTopLeftCorner().x());
+        buffer.putFloat(avatar.getTopLeftCorner().y());
+        avatar.writeState(buffer);
+        hud.writeState(buffer);
+        Carrot.writeState(buffer);
+        FireBall.writeState(buffer, gameObjects());
+        return buffer.flip();
+    }
 
-        generalSettings(windowController, initialAvatarLocation, avatar);
+    // reading the start of the saved game: the time of day, and the location of the avatar, which
+    // the world is created around.
+    private Vector2 readSnapshotHeader() {
+        GameSnapshot.readHeader(snapshot, SEED);
+        savedDayTime = snapshot.getFloat();
+        return new Vector2(snapshot.getFloat(), snapshot.getFloat());
+    }
+
+    // restoring the rest of the saved game, into the objects the game was set up with.
+    private void restoreSnapshot() {
+        avatar.readState(snapshot);
+        hud.readState(snapshot);
+        Carrot.readState(snapshot);
+        FireBall.readState(snapshot, gameObjects(), sprites);
+        snapshot = null;
+        dayCycle.setTime(savedDayTime);
+    }
+
+    // saving the game to SAVE_FILE, when SAVE_KEY is pressed.
+    private void saveOnKey() {
+        boolean isSaveKeyPressed = inputListener.isKeyPressed(SAVE_KEY);
+        if (isSaveKeyPressed && !wasSaveKeyPressed) {
+            try {
+                GameSnapshot.write(saveSnapshot(), Paths.get(SAVE_FILE));
+            } catch (IOException e) {
+                System.err.println("could not save the game: " + e);
+            }
+        }
+        wasSaveKeyPressed = isSaveKeyPressed;
+    }
+
+    /**
+     * Called once per frame, commits the chunks the background workers finished and advances the
+     * game by the time that passed in steps of a fixed SIMULATION_STEP, so the game plays the same
+     * at every frame rate. The time left over is simulated by a later frame (and shown meanwhile
+     * by interpolating the avatar, see render). A frame runs at most MAX_STEPS_PER_FRAME steps, a
+     * slower one drops the rest of its time, so the game slows down rather than falling further
+     * behind every frame.
+     *
+     * @param deltaTime The time, in seconds, that passed since the last invocation.
+     */
+    @Override
+    public void update(float deltaTime) {
+        long frameStart = System.nanoTime();
+        profiler.beginFrame();
+        world.update(); // the streaming budget is a frame's, however many steps it runs
+        unsimulatedTime += deltaTime;
+        for (int steps = 0; unsimulatedTime >= SIMULATION_STEP && steps < MAX_STEPS_PER_FRAME; steps++) {
+            previousAvatarTopLeft = avatar.getTopLeftCorner();
+            step(SIMULATION_STEP);
+            unsimulatedTime -= SIMULATION_STEP;
+        }
+        unsimulatedTime = Math.min(unsimulatedTime, SIMULATION_STEP);
+        profiler.endFrame(System.nanoTime() - frameStart);
+    }
+
+    /**
+     * Draws the game with the avatar (and the camera and the texts that follow it) placed between
+     * where the last two steps left it, as far as the time left over from update is into the next
+     * step, so its movement looks smooth although the steps don't line up with the frames.
+     *
+     * @param g The graphics to draw with.
+     */
+    @Override
+    public void render(Graphics2D g) {
+        Vector2 avatarTopLeft = avatar.getTopLeftCorner();
+        if (avatarTopLeft.equals(previousAvatarTopLeft)) {
+            super.render(g);
+            return;
+        }
+        Vector2 movement = avatarTopLeft.subtract(previousAvatarTopLeft);
+        moveAvatarForRendering(previousAvatarTopLeft.add(movement.mult(unsimulatedTime / SIMULATION_STEP)));
+        super.render(g);
+        moveAvatarForRendering(avatarTopLeft);
+    }
+
+    // moving the avatar, along with the camera and the texts following it, without simulating.
+    private void moveAvatarForRendering(Vector2 topLeftCorner) {
+        avatar.setTopLeftCorner(topLeftCorner);
+        hud.followAvatar();
+        camera.update(0);
+    }
+
+    // a single step of the game: animates the leaves, updates the game and then the texts on the
+    // screen, finds the fireBalls that hit a carrot, lets the object pools and the visibility
+    // manager know the step ended and moves the day along. F5 saves the game, and the input of
+    // the step is recorded when asked to.
+    private void step(float deltaTime) {
+        if (inputRecorder != null) {
+            inputRecorder.beginStep();
+        }
+        long leavesStart = System.nanoTime();
+        tree.update(deltaTime);
+        profiler.add(FrameProfiler.Section.LEAVES, System.nanoTime() - leavesStart);
+        super.update(deltaTime);
+        hud.update(deltaTime);
+        if (isHeadless) { // danogl only moves the camera it renders with
+            camera.update(deltaTime);
+        }
+        projectiles.handleCollisions();
+        FireBall.getPool().endFrame();
+        Carrot.getPool().endFrame();
+        visibility.endFrame();
+        dayCycle.update(deltaTime);
+        saveOnKey();
+        if (inputRecorder != null) {
+            inputRecorder.endStep();
+        }
     }
 
     // setting up general game related settings
-    private void generalSettings(WindowController windowController, Vector2 initialAvatarLocation,
-                                 Avatar avatar) {
-        // camera
-        setCamera(new Camera(avatar,
+    private void generalSettings(UserInputListener inputListener, WindowController windowController,
+                                 Vector2 initialAvatarLocation, Avatar avatar) {
+        // camera (nothing is rendered when headless, but the view still decides what sleeps)
+        camera = new Camera(avatar,
                 windowController.getWindowDimensions().mult(0.5f).subtract(initialAvatarLocation),
-                windowController.getWindowDimensions(), windowController.getWindowDimensions()));
+                windowController.getWindowDimensions(), windowController.getWindowDimensions());
+        camera.update(0);
+        if (!isHeadless) {
+            setCamera(camera);
+        }
+
+        // putting the leaves, carrots and fireBalls out of sight to sleep
+        visibility = new VisibilityManager(camera, VIEW_MARGIN);
+        tree.setVisibility(visibility);
+        Carrot.setVisibility(visibility);
+        FireBall.setVisibility(visibility);
+
+        // profiling the frames (F3 shows the numbers, Flight Recorder records them when it's on)
+        profiler = new FrameProfiler(gameObjects());
+        profiler.watchLayer("ground", Layer.STATIC_OBJECTS);
+        profiler.watchLayer("ground top", Layer.STATIC_OBJECTS + 1);
+        profiler.watchLayer("trunks", Layer.BACKGROUND + 21);
+        profiler.watchLayer("leaves", Layer.BACKGROUND + 22);
+        profiler.watchLayer("carrots", Layer.DEFAULT + 1);
+        profiler.watchLayer("fireBalls", FireBall.LAYER);
+        world.setProfiler(profiler);
+        avatar.setProfiler(profiler);
+        Carrot.setProfiler(profiler);
+        DebugOverlay.create(gameObjects(), profiler, inputListener, windowController.getWindowDimensions());
 
-        // setting up coalitions (avatar - trunk, leaf - ground)
-        gameObjects().layers().shouldLayersCollide(Layer.BACKGROUND + TREE_TRUNK_LAYER_OFFSET,
-                Layer.STATIC_OBJECTS + 1, true);
+        // setting up coalitions (avatar - trunk), the leaves land by themselves (see LeafAnimator)
         gameObjects().layers().shouldLayersCollide(Layer.DEFAULT,
                 Layer.BACKGROUND + TERRAIN_TOP_BLOCKS_LAYER_OFFSET, true);
     }
 
     // setting up game elements which are active in some sense
-    private Avatar setUpActiveElements(ImageReader imageReader, UserInputListener inputListener,
+    private Avatar setUpActiveElements(UserInputListener inputListener,
                                        WindowController windowController, Terrain terrain,
-                                       Vector2 initialAvatarLocation) {
+                                       Vector2 initialAvatarLocation, float viewLeft) {
         // tree
-        Tree tree = new Tree(gameObjects(), Layer.BACKGROUND + 20, terrain::groundHeightAt);
-        tree.setRandomaizer(mainRandom, SEED);
-        tree.createInRange(0, (int) windowController.getWindowDimensions().x());
+        tree = new Tree(gameObjects(), Layer.BACKGROUND + 20, terrain::groundHeightAt);
+        tree.setSeed(SEED);
+        tree.createInRange((int) viewLeft, (int) (viewLeft + windowController.getWindowDimensions().x()));
 
         // avatar
         Avatar avatar = Avatar.create(gameObjects(), Layer.DEFAULT, initialAvatarLocation,
-                inputListener, imageReader);
-        avatar.setTerrainChange(terrain, tree, windowController,
-                TERRAIN_BUFFER);
+                inputListener, sprites);
+        world = new ChunkPipeline(terrain, tree, CHUNK_WORKERS, STREAMING_OBJECT_BUDGET,
+                STREAMING_TIME_BUDGET_NANOS);
+        avatar.setTerrainChange(world, windowController, TERRAIN_BUFFER);
+        setUpWorldCache(windowController);
 
         // base carrot
         gameObjects().addGameObject(new Carrot(avatar, gameObjects(), Vector2.ZERO, Vector2.ZERO,
-                null, Layer.DEFAULT + 1, imageReader, windowController.getWindowDimensions()));
+                null, Layer.DEFAULT + 1, sprites));
         Carrot.setGroundHeightAtFunc(terrain::groundHeightAt);
-        Carrot.create();
+        if (snapshot == null) { // a saved game brings its own carrots
+            Carrot.create();
+        }
+
+        // the texts on the screen
+        hud = new Hud(gameObjects(), avatar, windowController.getWindowDimensions());
+
+        // fireBall - carrot collisions, through a grid rather than danogl's pairs
+        projectiles = new ProjectileBroadphase(gameObjects(), Layer.DEFAULT + 1, FireBall.LAYER);
         return avatar;
     }
 
+    // keeping the described chunks on disk, in the directory of the pepse.worldCache property, if
+    // it's set (nothing is written to disk otherwise). Besides the seed, the terrain depends on
+    // the height of the window.
+    private void setUpWorldCache(WindowController windowController) {
+        String directory = System.getProperty(WORLD_CACHE_PROPERTY, "");
+        if (directory.isEmpty()) {
+            return;
+        }
+        worldCache = new WorldCache(Paths.get(directory), SEED,
+                Float.floatToIntBits(windowController.getWindowDimensions().y()), world.getChunkBytes());
+        world.setCache(worldCache);
+    }
+
+    // recording the input to the file of the pepse.recordInput property, if it's set, so the run
+    // can be replayed by HeadlessSimulation. The log is written when the game exits, and a reset
+    // keeps recording into the same one.
+    private UserInputListener setUpInputRecorder(UserInputListener inputListener) {
+        String file = System.getProperty(RECORD_INPUT_PROPERTY, "");
+        if (file.isEmpty()) {
+            return inputListener;
+        }
+        if (inputRecorder == null) {
+            InputRecorder recorder = new InputRecorder(inputListener);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    recorder.write(Paths.get(file));
+                } catch (IOException e) {
+                    System.err.println("could not write the input log: " + e);
+                }
+            }));
+            inputRecorder = recorder;
+        }
+        return inputRecorder;
+    }
+
     // setting up all game related background elements
-    private Terrain setUpBackGround(WindowController windowController) {
+    private Terrain setUpBackGround(WindowController windowController, float viewLeft) {
         // sky
-        Sky.create(gameObjects(), windowController.getWindowDimensions(), Layer.BACKGROUND);
+        GameObject sky = Sky.create(gameObjects(), windowController.getWindowDimensions(), Layer.BACKGROUND);
 
         // terrain
         Terrain terrain = new Terrain(gameObjects(), Layer.STATIC_OBJECTS,
-                windowController.getWindowDimensions(), SEED);
-        terrain.createInRange(0, (int) windowController.getWindowDimensions().x() + TERRAIN_BUFFER);
+                windowController.getWindowDimensions(), SEED, true);
+        terrain.createInRange((int) viewLeft,
+                (int) (viewLeft + windowController.getWindowDimensions().x()) + TERRAIN_BUFFER);
 
         // night
-        Night.create(gameObjects(), Layer.FOREGROUND, windowController.getWindowDimensions(), CYCLE_LENGTH);
+        GameObject night = Night.create(gameObjects(), Layer.FOREGROUND, windowController.getWindowDimensions());
 
         // sun
-        GameObject sun = Sun.create(gameObjects(), Layer.BACKGROUND + 1,
-                windowController.getWindowDimensions(), CYCLE_LENGTH);
+        GameObject sun = Sun.create(gameObjects(), Layer.BACKGROUND + 1, windowController.getWindowDimensions());
 
         // sun-halo
-        SunHalo.create(gameObjects(), Layer.BACKGROUND + SUN_HALO_LAYER_OFFSET, sun, SUN_HALO_COLOR);
+        GameObject sunHalo = SunHalo.create(gameObjects(), Layer.BACKGROUND + SUN_HALO_LAYER_OFFSET,
+                sun, SUN_HALO_COLOR);
+
+        // the day, moving all of the above
+        dayCycle = new DayCycle(CYCLE_LENGTH, windowController.getWindowDimensions(), sun, sunHalo, night, sky);
         return terrain;
     }
+
+    /**
+     * @return The pipeline streaming the world, null before the game is initialized.
+     */
+    ChunkPipeline getWorld() {
+        return world;
+    }
+
+    /**
+     * @return The cache of the described chunks, null before the game is initialized or if it's off.
+     */
+    WorldCache getWorldCache() {
+        return worldCache;
+    }
+
+    /**
+     * @return The broadphase of the fireBall - carrot collisions, null before the game is initialized.
+     */
+    ProjectileBroadphase getProjectiles() {
+        return projectiles;
+    }
+
+    /**
+     * @return The manager of the objects that sleep out of sight, null before the game is initialized.
+     */
+    VisibilityManager getVisibility() {
+        return visibility;
+    }
+
+    /**
+     * @return The profiler of the frames, null before the game is initialized.
+     */
+    FrameProfiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * @return The sprite cache of the game, null before the game is initialized.
+     */
+    SpriteCache getSprites() {
+        return sprites;
+    }
+
+    /**
+     * @return The number of game objects currently in the game, in all layers.
+     */
+    int countGameObjects() {
+        int count = 0;
+        for (GameObject ignored : gameObjects()) {
+            count++;
+        }
+        return count;
+    }
 }
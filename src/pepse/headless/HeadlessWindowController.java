@@ -0,0 +1,79 @@
+package pepse.headless;
+
+import danogl.gui.WindowController;
+import danogl.gui.rendering.Renderable;
+import danogl.util.Vector2;
+
+/**
+ * A window controller with fixed dimensions and no window behind it.
+ */
+public class HeadlessWindowController implements WindowController {
+    private final Vector2 windowDimensions;
+
+    /**
+     * constructor.
+     *
+     * @param windowDimensions - The dimensions reported for the (non existing) window.
+     */
+    public HeadlessWindowController(Vector2 windowDimensions) {
+        this.windowDimensions = windowDimensions;
+    }
+
+    @Override
+    public void closeWindow() {
+    }
+
+    @Override
+    public void resetGame() {
+    }
+
+    @Override
+    public void showMessageBox(String msg) {
+        System.err.println(msg);
+    }
+
+    @Override
+    public boolean openYesNoDialog(String msg) {
+        return false;
+    }
+
+    @Override
+    public double getTimeScale() {
+        return 1;
+    }
+
+    @Override
+    public void setTimeScale(float timeScale) {
+    }
+
+    @Override
+    public Vector2 getWindowDimensions() {
+        return windowDimensions;
+    }
+
+    @Override
+    public void setTargetFramerate(int targetFramerate) {
+    }
+
+    @Override
+    public void setPauseButton(int pauseButton) {
+    }
+
+    @Override
+    public void setExitButton(int exitButton) {
+    }
+
+    @Override
+    public void setMouseCursor(Renderable cursor, Vector2 dimensions, Vector2 hotspot) {
+    }
+
+    @Override
+    public Renderable getMouseCursor() {
+        return null;
+    }
+
+    @Override
+    public Vector2 getMouseCursorDimensions() {
+        return Vector2.ZERO;
+    }
+}
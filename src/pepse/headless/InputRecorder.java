@@ -0,0 +1,187 @@
+package pepse.headless;
+
+import danogl.gui.UserInputListener;
+import danogl.gui.mouse.MouseButton;
+import danogl.util.Vector2;
+
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A user input listener that passes the input of another one through, while recording which of
+ * the keys the game reads were held in every step of the game, so the run can be replayed (see
+ * ReplayInputListener) and gives the very same simulation. The recorded keys are read once, as
+ * a step begins, and the game is answered from that same reading for the rest of the step, so
+ * a key that changes while the step runs cannot make the log differ from what the game saw.
+ * Every step is a frame of the log, the held keys of a frame are a bit mask, and the log only
+ * keeps the frames the mask changed in: a header (a magic number, the version of the format,
+ * the number of frames and the recorded key codes) followed by a little-endian entry per
+ * change, of the frames since the previous change (as a var-int) and the new mask. Holding a
+ * key for a minute thus costs a couple of bytes rather than a byte per frame.
+ */
+public class InputRecorder implements UserInputListener {
+    static final int MAGIC = 0x50494E31; // "PIN1"
+    static final int FORMAT_VERSION = 1;
+    private static final int[] RECORDED_KEYS = {KeyEvent.VK_LEFT, KeyEvent.VK_RIGHT, KeyEvent.VK_SPACE,
+            KeyEvent.VK_SHIFT, KeyEvent.VK_CONTROL, KeyEvent.VK_F3};
+    private static final int HEADER_BYTES = (4 + RECORDED_KEYS.length) * Integer.BYTES;
+    private static final int MAX_CHANGE_BYTES = 6; // a var-int of up to 5 bytes and the mask
+    private static final int INITIAL_CAPACITY = 4096;
+    private static final int VAR_INT_BITS = 7;
+    private static final int VAR_INT_MASK = 0x7F;
+    private static final int VAR_INT_CONTINUES = 0x80;
+    private final UserInputListener inputListener;
+    private ByteBuffer changes = ByteBuffer.allocate(INITIAL_CAPACITY).order(ByteOrder.LITTLE_ENDIAN);
+    private int frames;
+    private int lastChangeFrame;
+    private int lastMask;
+    private int stepMask;
+
+    /**
+     * constructor.
+     *
+     * @param inputListener - The input listener whose input is recorded.
+     */
+    public InputRecorder(UserInputListener inputListener) {
+        this.inputListener = inputListener;
+    }
+
+    /**
+     * Should be called once per step of the game, before it reads its input, reads the held keys
+     * the step sees.
+     */
+    public void beginStep() {
+        int mask = 0;
+        for (int i = 0; i < RECORDED_KEYS.length; i++) {
+            if (inputListener.isKeyPressed(RECORDED_KEYS[i])) {
+                mask |= 1 << i;
+            }
+        }
+        stepMask = mask;
+    }
+
+    /**
+     * Should be called once per step of the game, after it read its input, records the keys
+     * beginStep read.
+     */
+    public synchronized void endStep() {
+        int mask = stepMask;
+        if (mask != lastMask) {
+            if (changes.remaining() < MAX_CHANGE_BYTES) {
+                changes = ByteBuffer.allocate(changes.capacity() * 2).order(ByteOrder.LITTLE_ENDIAN)
+                        .put(changes.flip());
+            }
+            putVarInt(changes, frames - lastChangeFrame);
+            changes.put((byte) mask);
+            lastChangeFrame = frames;
+            lastMask = mask;
+        }
+        frames++;
+    }
+
+    /**
+     * @return The number of frames recorded so far.
+     */
+    public synchronized int getFrames() {
+        return frames;
+    }
+
+    /**
+     * @return A buffer of the log recorded so far, from its position to its limit.
+     */
+    public synchronized ByteBuffer toBuffer() {
+        ByteBuffer log = ByteBuffer.allocate(HEADER_BYTES + changes.position()).order(ByteOrder.LITTLE_ENDIAN);
+        log.putInt(MAGIC);
+        log.putInt(FORMAT_VERSION);
+        log.putInt(frames);
+        log.putInt(RECORDED_KEYS.length);
+        for (int key : RECORDED_KEYS) {
+            log.putInt(key);
+        }
+        log.put(changes.duplicate().flip());
+        return log.flip();
+    }
+
+    /**
+     * Writes the log recorded so far to a file, replacing it.
+     *
+     * @param file - The file.
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(Path file) throws IOException {
+        ByteBuffer log = toBuffer();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (log.hasRemaining()) {
+                channel.write(log);
+            }
+        }
+    }
+
+    // writing a non-negative number in 7 bit groups, the low ones first.
+    private static void putVarInt(ByteBuffer buffer, int value) {
+        while ((value & ~VAR_INT_MASK) != 0) {
+            buffer.put((byte) ((value & VAR_INT_MASK) | VAR_INT_CONTINUES));
+            value >>>= VAR_INT_BITS;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Reads a number putVarInt wrote.
+     *
+     * @param buffer - The buffer, positioned at the number.
+     * @return The number.
+     */
+    static int getVarInt(ByteBuffer buffer) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (b & VAR_INT_MASK) << shift;
+            shift += VAR_INT_BITS;
+        } while ((b & VAR_INT_CONTINUES) != 0);
+        return value;
+    }
+
+    @Override
+    public boolean isKeyPressed(int keyCode) {
+        for (int i = 0; i < RECORDED_KEYS.length; i++) {
+            if (RECORDED_KEYS[i] == keyCode) {
+                return (stepMask & (1 << i)) != 0;
+            }
+        }
+        return inputListener.isKeyPressed(keyCode);
+    }
+
+    @Override
+    public boolean wasKeyReleasedThisFrame(int keyCode) {
+        return inputListener.wasKeyReleasedThisFrame(keyCode);
+    }
+
+    @Override
+    public boolean wasMouseButtonClickedThisFrame(MouseButton button) {
+        return inputListener.wasMouseButtonClickedThisFrame(button);
+    }
+
+    @Override
+    public boolean isMouseButtonPressed(MouseButton button) {
+        return inputListener.isMouseButtonPressed(button);
+    }
+
+    @Override
+    public Vector2 getMouseScreenPos() {
+        return inputListener.getMouseScreenPos();
+    }
+
+    @Override
+    public double mouseWheelClicksThisFrame() {
+        return inputListener.mouseWheelClicksThisFrame();
+    }
+}
@@ -0,0 +1,144 @@
+package pepse.headless;
+
+import danogl.gui.mouse.MouseButton;
+import danogl.util.Vector2;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A user input listener that replays a log an InputRecorder wrote, frame by frame, so the
+ * recorded run is simulated again exactly, as long as every frame is a single step of the game
+ * (see PepseGameManager.update), which it is at HeadlessSimulation's default deltaTime.
+ * The log moves forward only through advance, once per frame.
+ */
+public class ReplayInputListener implements SteppedInputListener {
+    private static final int NO_CHANGE = -1;
+    private final ByteBuffer changes;
+    private final int[] keys;
+    private final int frames;
+    private int frame;
+    private int mask;
+    private int previousMask;
+    private int nextChangeFrame;
+
+    /**
+     * constructor.
+     *
+     * @param log - A buffer of the log, see InputRecorder.toBuffer.
+     * @throws IllegalArgumentException if the buffer holds no input log of this version.
+     */
+    public ReplayInputListener(ByteBuffer log) {
+        this.changes = log.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (changes.remaining() < 4 * Integer.BYTES || changes.getInt() != InputRecorder.MAGIC) {
+            throw new IllegalArgumentException("not an input log");
+        }
+        int version = changes.getInt();
+        if (version != InputRecorder.FORMAT_VERSION) {
+            throw new IllegalArgumentException("unsupported input log version: " + version);
+        }
+        this.frames = changes.getInt();
+        this.keys = new int[changes.getInt()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = changes.getInt();
+        }
+        this.nextChangeFrame = 0;
+        readNextChangeFrame();
+        applyChanges();
+    }
+
+    /**
+     * Reads an input log from a file.
+     *
+     * @param file - The file, written by InputRecorder.write.
+     * @return A listener replaying it.
+     * @throws IOException if the file cannot be read.
+     */
+    public static ReplayInputListener read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("input log cut short: " + file);
+                }
+            }
+            return new ReplayInputListener(buffer.flip());
+        }
+    }
+
+    @Override
+    public void advance(float deltaTime) {
+        previousMask = mask;
+        frame++;
+        applyChanges();
+    }
+
+    @Override
+    public boolean isFinished() {
+        return frame >= frames;
+    }
+
+    @Override
+    public float getDuration(float deltaTime) {
+        return frames * deltaTime;
+    }
+
+    @Override
+    public boolean isKeyPressed(int keyCode) {
+        return isKeyInMask(keyCode, mask);
+    }
+
+    @Override
+    public boolean wasKeyReleasedThisFrame(int keyCode) {
+        return isKeyInMask(keyCode, previousMask) && !isKeyInMask(keyCode, mask);
+    }
+
+    // applying the changes of the current frame.
+    private void applyChanges() {
+        while (nextChangeFrame == frame) {
+            mask = changes.get() & 0xFF;
+            readNextChangeFrame();
+        }
+    }
+
+    // reading the frame of the next change, or NO_CHANGE at the end of the log.
+    private void readNextChangeFrame() {
+        nextChangeFrame = changes.hasRemaining() ?
+                nextChangeFrame + InputRecorder.getVarInt(changes) : NO_CHANGE;
+    }
+
+    // checks if a key is one of the keys held in a mask.
+    private boolean isKeyInMask(int keyCode, int mask) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == keyCode) {
+                return (mask & (1 << i)) != 0;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean wasMouseButtonClickedThisFrame(MouseButton button) {
+        return false;
+    }
+
+    @Override
+    public boolean isMouseButtonPressed(MouseButton button) {
+        return false;
+    }
+
+    @Override
+    public Vector2 getMouseScreenPos() {
+        return Vector2.ZERO;
+    }
+
+    @Override
+    public double mouseWheelClicksThisFrame() {
+        return 0;
+    }
+}
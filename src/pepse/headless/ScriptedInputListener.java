@@ -0,0 +1,135 @@
+package pepse.headless;
+
+import danogl.gui.mouse.MouseButton;
+import danogl.util.Vector2;
+
+import java.awt.event.KeyEvent;
+
+/**
+ * A user input listener that replays a script of held keys instead of reading a keyboard.
+ * A script is a comma separated list of steps, each step is the keys held (joined by '+',
+ * named after their KeyEvent.VK_ constant) and for how many seconds, for example
+ * "RIGHT:600" runs right for 10 minutes and "RIGHT+SPACE+SHIFT:5,:2,CONTROL:3" flies right,
+ * rests and then fires. The script moves forward only through advance, once per frame, and
+ * every step lasts a whole number of frames, its duration rounded to the nearest one.
+ */
+public class ScriptedInputListener implements SteppedInputListener {
+    private static final String STEP_SEPARATOR = ",";
+    private static final String DURATION_SEPARATOR = ":";
+    private static final String KEY_SEPARATOR = "\\+";
+    private static final String KEY_CODE_PREFIX = "VK_";
+    private static final int[] NO_KEYS = new int[0];
+    private final int[][] stepKeys;
+    private final float[] stepDurations;
+    private int step;
+    private int previousStep;
+    private int framesInStep;
+
+    /**
+     * constructor.
+     *
+     * @param script - The script to replay, an empty script never presses anything.
+     */
+    public ScriptedInputListener(String script) {
+        String[] steps = script.isBlank() ? new String[0] : script.split(STEP_SEPARATOR);
+        this.stepKeys = new int[steps.length][];
+        this.stepDurations = new float[steps.length];
+        for (int i = 0; i < steps.length; i++) {
+            String[] keysAndDuration = steps[i].trim().split(DURATION_SEPARATOR);
+            if (keysAndDuration.length != 2) {
+                throw new IllegalArgumentException("a script step must be KEYS:SECONDS, got " + steps[i]);
+            }
+            stepKeys[i] = parseKeys(keysAndDuration[0].trim());
+            stepDurations[i] = Float.parseFloat(keysAndDuration[1].trim());
+        }
+    }
+
+    // translating key names such as RIGHT or SPACE to their KeyEvent codes.
+    private static int[] parseKeys(String keys) {
+        if (keys.isEmpty()) {
+            return NO_KEYS;
+        }
+        String[] keyNames = keys.split(KEY_SEPARATOR);
+        int[] keyCodes = new int[keyNames.length];
+        for (int i = 0; i < keyNames.length; i++) {
+            try {
+                keyCodes[i] = KeyEvent.class.getField(KEY_CODE_PREFIX + keyNames[i].trim()).getInt(null);
+            } catch (NoSuchFieldException | IllegalAccessException e) {
+                throw new IllegalArgumentException("unknown key in script: " + keyNames[i], e);
+            }
+        }
+        return keyCodes;
+    }
+
+    @Override
+    public void advance(float deltaTime) {
+        previousStep = step;
+        framesInStep++;
+        while (step < stepDurations.length && framesInStep >= getFrames(step, deltaTime)) {
+            framesInStep -= getFrames(step, deltaTime);
+            step++;
+        }
+    }
+
+    @Override
+    public boolean isFinished() {
+        return step >= stepDurations.length;
+    }
+
+    @Override
+    public float getDuration(float deltaTime) {
+        int frames = 0;
+        for (int i = 0; i < stepDurations.length; i++) {
+            frames += getFrames(i, deltaTime);
+        }
+        return frames * deltaTime;
+    }
+
+    // the number of frames a step of the script lasts.
+    private int getFrames(int step, float deltaTime) {
+        return Math.round(stepDurations[step] / deltaTime);
+    }
+
+    @Override
+    public boolean isKeyPressed(int keyCode) {
+        return isKeyHeldInStep(keyCode, step);
+    }
+
+    @Override
+    public boolean wasKeyReleasedThisFrame(int keyCode) {
+        return isKeyHeldInStep(keyCode, previousStep) && !isKeyHeldInStep(keyCode, step);
+    }
+
+    // checks if a key is one of the keys held through the given step.
+    private boolean isKeyHeldInStep(int keyCode, int step) {
+        if (step >= stepKeys.length) {
+            return false;
+        }
+        for (int key : stepKeys[step]) {
+            if (key == keyCode) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean wasMouseButtonClickedThisFrame(MouseButton button) {
+        return false;
+    }
+
+    @Override
+    public boolean isMouseButtonPressed(MouseButton button) {
+        return false;
+    }
+
+    @Override
+    public Vector2 getMouseScreenPos() {
+        return Vector2.ZERO;
+    }
+
+    @Override
+    public double mouseWheelClicksThisFrame() {
+        return 0;
+    }
+}
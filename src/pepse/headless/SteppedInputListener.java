@@ -0,0 +1,27 @@
+package pepse.headless;
+
+import danogl.gui.UserInputListener;
+
+/**
+ * A user input listener that plays input back rather than reading a keyboard, so it only moves
+ * forward when the simulation steps it, once per frame.
+ */
+public interface SteppedInputListener extends UserInputListener {
+    /**
+     * Moves the input forward by a single frame.
+     *
+     * @param deltaTime - The time, in seconds, the frame took.
+     */
+    void advance(float deltaTime);
+
+    /**
+     * @return true once all of the input was played back.
+     */
+    boolean isFinished();
+
+    /**
+     * @param deltaTime - The time, in seconds, every frame takes.
+     * @return The total time, in seconds, the input takes to play back.
+     */
+    float getDuration(float deltaTime);
+}
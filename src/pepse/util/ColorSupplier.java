@@ -1,6 +1,11 @@
 package pepse.util;
 
+import danogl.gui.rendering.ImageRenderable;
+import danogl.gui.rendering.RectangleRenderable;
+
 import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
 import java.util.Random;
 
 /**
@@ -9,7 +14,10 @@ import java.util.Random;
  */
 public final class ColorSupplier {
     private static final int DEFAULT_COLOR_DELTA = 10;
+    public static final int PALETTE_SIZE = 32;
     private final static Random random = new Random();
+    private final static HashMap<Color, RectangleRenderable[]> palettes = new HashMap<>();
+    private final static HashMap<Color, ImageRenderable[]> stripPalettes = new HashMap<>();
 
     /**
      * Returns a color similar to baseColor, with a default delta.
@@ -36,6 +44,75 @@ public final class ColorSupplier {
                 randomChannelInRange(baseColor.getBlue()-colorDelta, baseColor.getBlue()+colorDelta));
     }
 
+    /**
+     * Returns a rectangle renderable of a color similar to baseColor, with a default delta.
+     * The renderables are taken from a palette of PALETTE_SIZE shades that is created once per
+     * base color and shared by all callers, so coloring a block allocates nothing.
+     *
+     * @param baseColor A color that we wish to approximate.
+     * @return A shared rectangle renderable of a color similar to baseColor.
+     */
+    public static RectangleRenderable approximateRectangle(Color baseColor) {
+        return approximateRectangle(baseColor, random.nextInt(PALETTE_SIZE));
+    }
+
+    /**
+     * Returns a given shade out of the palette of approximateRectangle, so the shades can be
+     * picked ahead of time (even off the game thread) and turned into renderables later.
+     *
+     * @param baseColor A color that we wish to approximate.
+     * @param shade     The index of the shade in the palette, in [0, PALETTE_SIZE).
+     * @return A shared rectangle renderable of a color similar to baseColor.
+     */
+    public static RectangleRenderable approximateRectangle(Color baseColor, int shade) {
+        RectangleRenderable[] palette = palettes.get(baseColor);
+        if (palette == null) {
+            palette = new RectangleRenderable[PALETTE_SIZE];
+            for (int i = 0; i < PALETTE_SIZE; i++) {
+                palette[i] = new RectangleRenderable(approximateColor(baseColor));
+            }
+            palettes.put(baseColor, palette);
+        }
+        return palette[shade];
+    }
+
+    /**
+     * Returns an image of a column of blocks, each of a color similar to baseColor, with a default delta.
+     * The image is a single pixel per block, so it is meant to be stretched over the whole column.
+     * Like approximateRectangle, the images are taken from a palette shared by all callers.
+     *
+     * @param baseColor A color that we wish to approximate.
+     * @param blocks    The number of blocks in the column.
+     * @return A shared image of a column of colors similar to baseColor.
+     */
+    public static ImageRenderable approximateStrip(Color baseColor, int blocks) {
+        return approximateStrip(baseColor, blocks, random.nextInt(PALETTE_SIZE));
+    }
+
+    /**
+     * Returns a given shade out of the palette of approximateStrip.
+     *
+     * @param baseColor A color that we wish to approximate.
+     * @param blocks    The number of blocks in the column.
+     * @param shade     The index of the shade in the palette, in [0, PALETTE_SIZE).
+     * @return A shared image of a column of colors similar to baseColor.
+     */
+    public static ImageRenderable approximateStrip(Color baseColor, int blocks, int shade) {
+        ImageRenderable[] palette = stripPalettes.get(baseColor);
+        if (palette == null || palette[0].height() != blocks) {
+            palette = new ImageRenderable[PALETTE_SIZE];
+            for (int i = 0; i < PALETTE_SIZE; i++) {
+                BufferedImage strip = new BufferedImage(1, blocks, BufferedImage.TYPE_INT_RGB);
+                for (int block = 0; block < blocks; block++) {
+                    strip.setRGB(0, block, approximateColor(baseColor).getRGB());
+                }
+                palette[i] = new ImageRenderable(strip);
+            }
+            stripPalettes.put(baseColor, palette);
+        }
+        return palette[shade];
+    }
+
     /**
      * This method generates a random value for a color channel within the given range [min, max].
      *
@@ -0,0 +1,165 @@
+package pepse.util;
+
+import java.util.Arrays;
+
+/**
+ * A set of column indices (or of any other int, such as chunk indices), negative ones included.
+ * The bits are kept in pages of 64 consecutive columns, a single long each, and only pages with
+ * a set bit are stored, in a small open addressing table. Checking a column is a couple of
+ * array reads, nothing is boxed, and the memory follows the loaded part of the world, not how
+ * far the avatar ever went.
+ */
+public class ColumnBitSet {
+    private static final int PAGE_SHIFT = 6;
+    private static final int PAGE_MASK = (1 << PAGE_SHIFT) - 1;
+    private static final int INITIAL_CAPACITY = 8;
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+    // a page index is a column shifted right by PAGE_SHIFT, so it is never Integer.MIN_VALUE.
+    private static final int EMPTY_PAGE = Integer.MIN_VALUE;
+    private int[] pages;
+    private long[] words;
+    private int pageCount;
+
+    /**
+     * constructor, of an empty set.
+     */
+    public ColumnBitSet() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param column - A column index.
+     * @return true if the column is in the set.
+     */
+    public boolean get(int column) {
+        int slot = find(column >> PAGE_SHIFT);
+        return slot >= 0 && (words[slot] & bit(column)) != 0;
+    }
+
+    /**
+     * Adds a column to the set.
+     *
+     * @param column - A column index.
+     * @return true if the column was not in the set before.
+     */
+    public boolean set(int column) {
+        int page = column >> PAGE_SHIFT;
+        int slot = find(page);
+        if (slot < 0) {
+            if ((pageCount + 1) * 2 > pages.length) {
+                rehash(pages.length * 2);
+            }
+            slot = insert(page);
+        }
+        boolean wasSet = (words[slot] & bit(column)) != 0;
+        words[slot] |= bit(column);
+        return !wasSet;
+    }
+
+    /**
+     * Removes a column from the set.
+     *
+     * @param column - A column index.
+     * @return true if the column was in the set before.
+     */
+    public boolean clear(int column) {
+        int slot = find(column >> PAGE_SHIFT);
+        if (slot < 0 || (words[slot] & bit(column)) == 0) {
+            return false;
+        }
+        words[slot] &= ~bit(column);
+        if (words[slot] == 0) {
+            removeSlot(slot);
+        }
+        return true;
+    }
+
+    /**
+     * @return true if there is no column in the set.
+     */
+    public boolean isEmpty() {
+        return pageCount == 0;
+    }
+
+    /**
+     * @return The number of columns in the set.
+     */
+    public int size() {
+        int size = 0;
+        for (int slot = 0; slot < pages.length; slot++) {
+            size += Long.bitCount(words[slot]);
+        }
+        return size;
+    }
+
+    // the bit of a column within its page.
+    private static long bit(int column) {
+        return 1L << (column & PAGE_MASK);
+    }
+
+    // the slot a page is looked for first.
+    private int homeSlot(int page) {
+        return (page * HASH_MULTIPLIER) & (pages.length - 1);
+    }
+
+    // the slot of a stored page, or -1.
+    private int find(int page) {
+        int mask = pages.length - 1;
+        for (int slot = homeSlot(page); pages[slot] != EMPTY_PAGE; slot = (slot + 1) & mask) {
+            if (pages[slot] == page) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    // storing an empty page that isn't in the table, returns its slot.
+    private int insert(int page) {
+        int mask = pages.length - 1;
+        int slot = homeSlot(page);
+        while (pages[slot] != EMPTY_PAGE) {
+            slot = (slot + 1) & mask;
+        }
+        pages[slot] = page;
+        words[slot] = 0;
+        pageCount++;
+        return slot;
+    }
+
+    // removing a page, shifting back the pages that probed past it so no lookup is cut short.
+    private void removeSlot(int slot) {
+        int mask = pages.length - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; pages[next] != EMPTY_PAGE; next = (next + 1) & mask) {
+            int home = homeSlot(pages[next]);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                pages[hole] = pages[next];
+                words[hole] = words[next];
+                hole = next;
+            }
+        }
+        pages[hole] = EMPTY_PAGE;
+        words[hole] = 0;
+        pageCount--;
+    }
+
+    // moving every page to a table of the given capacity.
+    private void rehash(int capacity) {
+        int[] oldPages = pages;
+        long[] oldWords = words;
+        allocate(capacity);
+        for (int slot = 0; slot < oldPages.length; slot++) {
+            if (oldPages[slot] != EMPTY_PAGE) {
+                words[insert(oldPages[slot])] = oldWords[slot];
+            }
+        }
+    }
+
+    // replacing the table with an empty one of the given capacity, a power of 2.
+    private void allocate(int capacity) {
+        pages = new int[capacity];
+        words = new long[capacity];
+        Arrays.fill(pages, EMPTY_PAGE);
+        pageCount = 0;
+    }
+}
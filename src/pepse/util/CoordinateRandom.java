@@ -0,0 +1,66 @@
+package pepse.util;
+
+/**
+ * A stateless random number generator for world generation.
+ * Every value is a SplitMix64 hash of (seed, x, y, salt), so the same coordinates always give
+ * the same value, no matter in which order (or on which thread) they are asked for, and
+ * nothing is ever allocated. The salt tells apart different uses of the same coordinates,
+ * such as the height of a tree and the timing of its leaves.
+ */
+public final class CoordinateRandom {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final long MIX_MULTIPLIER_1 = 0xBF58476D1CE4E5B9L;
+    private static final long MIX_MULTIPLIER_2 = 0x94D049BB133111EBL;
+    private static final float FLOAT_UNIT = 0x1.0p-24f;
+    private static final int FLOAT_BITS = 24;
+
+    private CoordinateRandom() {
+    }
+
+    /**
+     * Hashes a coordinate to 64 random bits.
+     *
+     * @param seed - The seed of the world.
+     * @param x    - The first coordinate.
+     * @param y    - The second coordinate.
+     * @param salt - Tells apart values that are drawn for different purposes.
+     * @return 64 bits that depend on every bit of the arguments.
+     */
+    public static long hash(long seed, int x, int y, int salt) {
+        long h = mix(seed + GOLDEN_GAMMA);
+        h = mix(h ^ (x + GOLDEN_GAMMA));
+        h = mix(h ^ (y + 2 * GOLDEN_GAMMA));
+        return mix(h ^ (salt + 3 * GOLDEN_GAMMA));
+    }
+
+    /**
+     * @param seed - The seed of the world.
+     * @param x    - The first coordinate.
+     * @param y    - The second coordinate.
+     * @param salt - Tells apart values that are drawn for different purposes.
+     * @return A float uniformly distributed in [0, 1).
+     */
+    public static float nextFloat(long seed, int x, int y, int salt) {
+        return (hash(seed, x, y, salt) >>> (Long.SIZE - FLOAT_BITS)) * FLOAT_UNIT;
+    }
+
+    /**
+     * @param seed  - The seed of the world.
+     * @param x     - The first coordinate.
+     * @param y     - The second coordinate.
+     * @param salt  - Tells apart values that are drawn for different purposes.
+     * @param bound - The upper bound (exclusive), must be positive.
+     * @return An int uniformly distributed in [0, bound).
+     */
+    public static int nextInt(long seed, int x, int y, int salt, int bound) {
+        // the high 32 bits scaled to the bound (Lemire's multiply-shift)
+        return (int) (((hash(seed, x, y, salt) >>> Integer.SIZE) * bound) >>> Integer.SIZE);
+    }
+
+    // the SplitMix64 finalizer.
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * MIX_MULTIPLIER_1;
+        z = (z ^ (z >>> 27)) * MIX_MULTIPLIER_2;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,119 @@
+package pepse.util;
+
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import danogl.collisions.Layer;
+import danogl.components.CoordinateSpace;
+import danogl.gui.UserInputListener;
+import danogl.util.Vector2;
+
+import java.awt.*;
+import java.awt.event.KeyEvent;
+
+/**
+ * An on-screen text with the numbers of a FrameProfiler: the frame time and its percentiles,
+ * the time of every section, the allocation rate and the objects of the watched layers.
+ * It is hidden until TOGGLE_KEY is pressed (and hidden again by the next press), and only
+ * refreshes its text a couple of times a second while shown, so it costs nothing when hidden.
+ */
+public class DebugOverlay extends GameObject {
+    private static final int TOGGLE_KEY = KeyEvent.VK_F3;
+    private static final float REFRESH_INTERVAL = 0.5f;
+    private static final Vector2 DIMENSIONS = new Vector2(320, 220);
+    private static final float MARGIN = 10;
+    private static final double NANOS_IN_MILLI = 1e6;
+    private static final double BYTES_IN_KB = 1024;
+    private static final double MEDIAN = 50;
+    private static final double TAIL = 99;
+    private final FrameProfiler profiler;
+    private final UserInputListener inputListener;
+    private final SafeTextRenderable text;
+    private final StringBuilder builder = new StringBuilder();
+    private boolean isShown;
+    private boolean wasKeyPressed;
+    private float timeSinceRefresh;
+
+    /**
+     * constructor.
+     *
+     * @param profiler         - The profiler whose numbers are shown.
+     * @param inputListener    - Used for reading the toggle key.
+     * @param windowDimensions - The dimensions of the window, the overlay sits at its top-right.
+     */
+    public DebugOverlay(FrameProfiler profiler, UserInputListener inputListener, Vector2 windowDimensions) {
+        super(new Vector2(windowDimensions.x() - DIMENSIONS.x() - MARGIN, MARGIN), DIMENSIONS, null);
+        this.profiler = profiler;
+        this.inputListener = inputListener;
+        this.text = new SafeTextRenderable("");
+        text.setColor(Color.WHITE);
+        setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
+    }
+
+    /**
+     * This function creates a debug overlay and adds it to the UI layer.
+     *
+     * @param gameObjects      - The collection of all participating game objects.
+     * @param profiler         - The profiler whose numbers are shown.
+     * @param inputListener    - Used for reading the toggle key.
+     * @param windowDimensions - The dimensions of the window.
+     * @return The new overlay.
+     */
+    public static DebugOverlay create(GameObjectCollection gameObjects, FrameProfiler profiler,
+                                      UserInputListener inputListener, Vector2 windowDimensions) {
+        DebugOverlay overlay = new DebugOverlay(profiler, inputListener, windowDimensions);
+        gameObjects.addGameObject(overlay, Layer.UI);
+        return overlay;
+    }
+
+    /**
+     * Should be called once per frame, toggles the overlay and refreshes its text.
+     *
+     * @param deltaTime The time elapsed, in seconds, since the last frame.
+     */
+    @Override
+    public void update(float deltaTime) {
+        super.update(deltaTime);
+        boolean isKeyPressed = inputListener.isKeyPressed(TOGGLE_KEY);
+        if (isKeyPressed && !wasKeyPressed) {
+            isShown = !isShown;
+            renderer().setRenderable(isShown ? text : null);
+            timeSinceRefresh = REFRESH_INTERVAL;
+        }
+        wasKeyPressed = isKeyPressed;
+        if (!isShown) {
+            return;
+        }
+        timeSinceRefresh += deltaTime;
+        if (timeSinceRefresh >= REFRESH_INTERVAL) {
+            timeSinceRefresh = 0;
+            text.setString(describe());
+        }
+    }
+
+    /**
+     * @return true if the overlay is on the screen.
+     */
+    public boolean isShown() {
+        return isShown;
+    }
+
+    // the text of the overlay.
+    private String describe() {
+        RollingHistogram frameTimes = profiler.getFrameTimes();
+        builder.setLength(0);
+        builder.append(String.format("frame %.2fms p50 %.2fms p99 %.2fms%n",
+                profiler.getLastFrameNanos() / NANOS_IN_MILLI,
+                frameTimes.percentile(MEDIAN) / NANOS_IN_MILLI,
+                frameTimes.percentile(TAIL) / NANOS_IN_MILLI));
+        builder.append(String.format("allocated %.1fKB/frame%n",
+                profiler.getLastAllocatedBytes() / BYTES_IN_KB));
+        for (FrameProfiler.Section section : FrameProfiler.Section.values()) {
+            builder.append(String.format("%s %.3fms%n", section.getLabel(),
+                    profiler.getLastNanos(section) / NANOS_IN_MILLI));
+        }
+        for (int i = 0; i < profiler.getWatchedLayers(); i++) {
+            builder.append(String.format("%s: %d%n", profiler.getLayerName(i), profiler.getLayerCount(i)));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,96 @@
+package pepse.util;
+
+/**
+ * A one dimensional version of NoiseGenerator, for terrain profiles sampled at whole columns.
+ * NoiseGenerator always samples its 3D Perlin noise with y = z = 0, so for an integral seed
+ * only the two gradients along x ever take part. Those gradients are resolved once per cell
+ * in the constructor, which leaves a fade and a lerp per octave.
+ * For the same seed, noise(x) returns exactly NoiseGenerator.noise(x).
+ */
+public class FractalNoise1D {
+    private static final int CELLS = 256;
+    private static final double GRADIENT_SCALE = 5;
+    // the octave sizes of NoiseGenerator: 35, halved while at least 1.
+    private static final double[] OCTAVE_SIZES = {35, 17.5, 8.75, 4.375, 2.1875, 1.09375};
+    private final double seed;
+    private final double[] leftGradients;
+    private final double[] rightGradients;
+
+    /**
+     * constructor.
+     *
+     * @param seed - The seed of the noise, same as the (floored) seed given to NoiseGenerator.
+     */
+    public FractalNoise1D(int seed) {
+        this.seed = seed;
+        this.leftGradients = new double[CELLS];
+        this.rightGradients = new double[CELLS];
+        int[] p = new int[CELLS * 2];
+        for (int i = 0; i < CELLS; i++) {
+            p[CELLS + i] = p[i] = NoiseGenerator.PERMUTATION[i];
+        }
+        int y = seed & (CELLS - 1); // y is always 0 + seed, so its cell never changes.
+        for (int x = 0; x < CELLS; x++) {
+            leftGradients[x] = gradient(p[p[p[x] + y]]);
+            rightGradients[x] = gradient(p[p[p[x + 1] + y]]);
+        }
+    }
+
+    /**
+     * Returns the noise at a single x.
+     *
+     * @param x - The x to sample.
+     * @return The noise at x, same as NoiseGenerator.noise(x).
+     */
+    public double noise(int x) {
+        double value = 0.0;
+        for (double size : OCTAVE_SIZES) {
+            value += smoothNoise(x / size) * size;
+        }
+        return Math.abs(value / OCTAVE_SIZES[0]);
+    }
+
+    /**
+     * Fills out[0, count) with the noise of the consecutive xs starting at startX.
+     *
+     * @param out    - The array to write the noise to.
+     * @param startX - The x of out[0].
+     * @param count  - The number of xs to sample.
+     */
+    public void fill(float[] out, int startX, int count) {
+        for (int i = 0; i < count; i++) {
+            out[i] = (float) noise(startX + i);
+        }
+    }
+
+    // the noise of a single octave, x is already divided by the octave size.
+    private double smoothNoise(double x) {
+        // offsetting the same way NoiseGenerator does (the seed is added to x twice)
+        x += seed;
+        x += seed;
+
+        int cell = (int) x;
+        if (x < cell) {
+            cell--;
+        }
+        x -= cell;
+        cell &= CELLS - 1;
+
+        double u = x * x * x * (x * (x * 6 - 15) + 10);
+        double left = leftGradients[cell] * x / GRADIENT_SCALE;
+        double right = rightGradients[cell] * (x - 1) / GRADIENT_SCALE;
+        return left + u * (right - left);
+    }
+
+    // the x coefficient of NoiseGenerator's gradient when y and z are 0.
+    private static double gradient(int hash) {
+        int h = hash & 15;
+        if (h < 8) {
+            return (h & 1) == 0 ? 1 : -1;
+        }
+        if (h == 12 || h == 14) {
+            return (h & 2) == 0 ? 1 : -1;
+        }
+        return 0;
+    }
+}
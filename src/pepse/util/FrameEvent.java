@@ -0,0 +1,50 @@
+package pepse.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A Flight Recorder event committed by FrameProfiler at the end of every frame.
+ */
+@Name("pepse.Frame")
+@Label("Frame")
+@Category("Pepse")
+@Description("The time spent in a single frame of the game, and in its parts")
+@StackTrace(false)
+class FrameEvent extends Event {
+    @Label("Frame Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long frameTime;
+
+    @Label("Terrain Streaming")
+    @Timespan(Timespan.NANOSECONDS)
+    long terrainStreaming;
+
+    @Label("Tree Streaming")
+    @Timespan(Timespan.NANOSECONDS)
+    long treeStreaming;
+
+    @Label("Avatar Update")
+    @Description("Excluding the streaming the avatar forces, which is timed as streaming")
+    @Timespan(Timespan.NANOSECONDS)
+    long avatarUpdate;
+
+    @Label("Carrot Updates")
+    @Timespan(Timespan.NANOSECONDS)
+    long carrotUpdates;
+
+    @Label("Leaf Animation")
+    @Timespan(Timespan.NANOSECONDS)
+    long leafAnimation;
+
+    @Label("Allocated")
+    @Description("The bytes allocated by the game thread during the frame")
+    @DataAmount
+    long allocated;
+}
@@ -0,0 +1,238 @@
+package pepse.util;
+
+import com.sun.management.ThreadMXBean;
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures where the time of every frame goes.
+ * The parts of the game add the time they took to their Section as the frame runs, and at the
+ * end of the frame the sections, the frame time and the bytes the game thread allocated are
+ * kept for the last frame and summed over all of them, the frame time is added to a rolling
+ * histogram and a FrameEvent is committed for Flight Recorder (when it's recording).
+ * Every LAYER_SAMPLE_FRAMES frames the objects of the watched layers are counted as well.
+ */
+public class FrameProfiler {
+    /**
+     * The parts of a frame that are timed.
+     */
+    public enum Section {
+        TERRAIN_STREAMING("terrain streaming"),
+        TREE_STREAMING("tree streaming"),
+        AVATAR("avatar"),
+        CARROTS("carrots"),
+        LEAVES("leaves");
+
+        private final String label;
+
+        Section(String label) {
+            this.label = label;
+        }
+
+        /**
+         * @return A short name of the section, to display.
+         */
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private static final int HISTOGRAM_FRAMES = 600;
+    private static final int HISTOGRAM_BUCKETS = 100;
+    private static final long HISTOGRAM_BUCKET_NANOS = 250_000;
+    private static final int LAYER_SAMPLE_FRAMES = 30;
+    private final GameObjectCollection gameObjects;
+    private final ThreadMXBean threadBean;
+    private final long[] sectionNanos = new long[Section.values().length];
+    private final long[] lastSectionNanos = new long[Section.values().length];
+    private final long[] totalSectionNanos = new long[Section.values().length];
+    private final RollingHistogram frameTimes;
+    private final List<String> layerNames = new ArrayList<>();
+    private final List<Integer> layers = new ArrayList<>();
+    private int[] layerCounts = new int[0];
+    private long frameStartAllocatedBytes;
+    private long lastFrameNanos;
+    private long lastAllocatedBytes;
+    private long totalAllocatedBytes;
+    private long frames;
+
+    /**
+     * constructor.
+     *
+     * @param gameObjects - The collection of all participating game objects.
+     */
+    public FrameProfiler(GameObjectCollection gameObjects) {
+        this.gameObjects = gameObjects;
+        this.threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        this.frameTimes = new RollingHistogram(HISTOGRAM_FRAMES, HISTOGRAM_BUCKETS, HISTOGRAM_BUCKET_NANOS);
+    }
+
+    /**
+     * Adds a layer to the ones whose objects are counted.
+     *
+     * @param name  - A name of the layer, to display.
+     * @param layer - The layer.
+     */
+    public void watchLayer(String name, int layer) {
+        layerNames.add(name);
+        layers.add(layer);
+        layerCounts = new int[layers.size()];
+    }
+
+    /**
+     * Should be called at the start of every frame, on the game thread.
+     */
+    public void beginFrame() {
+        frameStartAllocatedBytes = allocatedBytes();
+    }
+
+    /**
+     * Adds time to a section of the current frame.
+     *
+     * @param section - The section.
+     * @param nanos   - The time, in nanoseconds, spent in the section.
+     */
+    public void add(Section section, long nanos) {
+        sectionNanos[section.ordinal()] += nanos;
+    }
+
+    /**
+     * @param section - The section.
+     * @return The time, in nanoseconds, added to the section so far in the current frame.
+     */
+    public long getNanos(Section section) {
+        return sectionNanos[section.ordinal()];
+    }
+
+    /**
+     * Should be called at the end of every frame, on the game thread.
+     *
+     * @param frameNanos - The time, in nanoseconds, the whole frame took.
+     */
+    public void endFrame(long frameNanos) {
+        lastFrameNanos = frameNanos;
+        lastAllocatedBytes = allocatedBytes() - frameStartAllocatedBytes;
+        totalAllocatedBytes += lastAllocatedBytes;
+        frameTimes.add(frameNanos);
+        for (int i = 0; i < sectionNanos.length; i++) {
+            lastSectionNanos[i] = sectionNanos[i];
+            totalSectionNanos[i] += sectionNanos[i];
+            sectionNanos[i] = 0;
+        }
+        commitFrameEvent();
+        if (frames++ % LAYER_SAMPLE_FRAMES == 0) {
+            countLayers();
+        }
+    }
+
+    /**
+     * @param section - A section.
+     * @return The time, in nanoseconds, spent in the section in the last frame.
+     */
+    public long getLastNanos(Section section) {
+        return lastSectionNanos[section.ordinal()];
+    }
+
+    /**
+     * @param section - A section.
+     * @return The average time, in nanoseconds, spent in the section per frame.
+     */
+    public double getAverageNanos(Section section) {
+        return frames == 0 ? 0 : (double) totalSectionNanos[section.ordinal()] / frames;
+    }
+
+    /**
+     * @return The time, in nanoseconds, the last frame took.
+     */
+    public long getLastFrameNanos() {
+        return lastFrameNanos;
+    }
+
+    /**
+     * @return The bytes the game thread allocated in the last frame.
+     */
+    public long getLastAllocatedBytes() {
+        return lastAllocatedBytes;
+    }
+
+    /**
+     * @return The average bytes the game thread allocated per frame.
+     */
+    public double getAverageAllocatedBytes() {
+        return frames == 0 ? 0 : (double) totalAllocatedBytes / frames;
+    }
+
+    /**
+     * @return The frame times, in nanoseconds, of the latest frames.
+     */
+    public RollingHistogram getFrameTimes() {
+        return frameTimes;
+    }
+
+    /**
+     * @return The number of watched layers.
+     */
+    public int getWatchedLayers() {
+        return layers.size();
+    }
+
+    /**
+     * @param index - The index of a watched layer, in the order they were watched.
+     * @return The name of the layer.
+     */
+    public String getLayerName(int index) {
+        return layerNames.get(index);
+    }
+
+    /**
+     * @param index - The index of a watched layer, in the order they were watched.
+     * @return The number of objects in the layer when they were last counted.
+     */
+    public int getLayerCount(int index) {
+        return layerCounts[index];
+    }
+
+    // committing the last frame to Flight Recorder, if it's recording frames.
+    private void commitFrameEvent() {
+        FrameEvent event = new FrameEvent();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.frameTime = lastFrameNanos;
+        event.terrainStreaming = getLastNanos(Section.TERRAIN_STREAMING);
+        event.treeStreaming = getLastNanos(Section.TREE_STREAMING);
+        event.avatarUpdate = getLastNanos(Section.AVATAR);
+        event.carrotUpdates = getLastNanos(Section.CARROTS);
+        event.leafAnimation = getLastNanos(Section.LEAVES);
+        event.allocated = lastAllocatedBytes;
+        event.commit();
+    }
+
+    // counting the objects of every watched layer, committing them to Flight Recorder as well.
+    private void countLayers() {
+        for (int i = 0; i < layers.size(); i++) {
+            int count = 0;
+            if (!gameObjects.isLayerEmpty(layers.get(i))) { // danogl throws for layers it never saw
+                for (GameObject ignored : gameObjects.objectsInLayer(layers.get(i))) {
+                    count++;
+                }
+            }
+            layerCounts[i] = count;
+            LayerObjectsEvent event = new LayerObjectsEvent();
+            if (event.shouldCommit()) {
+                event.layer = layerNames.get(i);
+                event.objects = count;
+                event.commit();
+            }
+        }
+    }
+
+    // the bytes allocated so far by the calling thread.
+    private long allocatedBytes() {
+        return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,25 @@
+package pepse.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event committed by FrameProfiler for every watched layer, whenever it
+ * counts the objects of the layers.
+ */
+@Name("pepse.LayerObjects")
+@Label("Layer Objects")
+@Category("Pepse")
+@Description("The number of game objects in a layer of the game")
+@StackTrace(false)
+class LayerObjectsEvent extends Event {
+    @Label("Layer")
+    String layer;
+
+    @Label("Objects")
+    int objects;
+}
@@ -0,0 +1,104 @@
+package pepse.util;
+
+import java.util.ArrayDeque;
+
+/**
+ * A bounded pool of game objects that can be reset and reused instead of being reallocated.
+ * GameObjectCollection only applies removals at the end of a frame, so a released object is
+ * kept aside until two calls of endFrame passed - by then its removal surely took place and
+ * adding it back to the game is safe.
+ *
+ * @param <T> The type of the pooled objects.
+ */
+public class ObjectPool<T> {
+    private final ArrayDeque<T> available;
+    private final ArrayDeque<T> releasedThisFrame;
+    private final ArrayDeque<T> releasedLastFrame;
+    private int capacity;
+    private long hits;
+    private long misses;
+
+    /**
+     * constructor.
+     *
+     * @param capacity - The maximal number of objects the pool holds, released objects beyond
+     *                 it are left to the garbage collector.
+     */
+    public ObjectPool(int capacity) {
+        this.available = new ArrayDeque<>(capacity);
+        this.releasedThisFrame = new ArrayDeque<>();
+        this.releasedLastFrame = new ArrayDeque<>();
+        setCapacity(capacity);
+    }
+
+    /**
+     * Takes an object out of the pool.
+     *
+     * @return A previously released object, or null if there is none and a new object should
+     * be created.
+     */
+    public T poll() {
+        T object = available.pollFirst();
+        if (object == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return object;
+    }
+
+    /**
+     * Returns an object to the pool, it can be polled again two frames later.
+     *
+     * @param object - An object that was removed from the game and will not be used again by
+     *               whoever released it.
+     */
+    public void release(T object) {
+        if (size() < capacity) {
+            releasedThisFrame.addLast(object);
+        }
+    }
+
+    /**
+     * Should be called once per frame, after the game objects collection was updated.
+     */
+    public void endFrame() {
+        while (!releasedLastFrame.isEmpty()) {
+            available.addLast(releasedLastFrame.pollFirst());
+        }
+        while (!releasedThisFrame.isEmpty()) {
+            releasedLastFrame.addLast(releasedThisFrame.pollFirst());
+        }
+    }
+
+    /**
+     * @param capacity - The maximal number of objects the pool holds, must be positive.
+     */
+    public void setCapacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return The number of objects held by the pool, including ones that are not ready yet.
+     */
+    public int size() {
+        return available.size() + releasedThisFrame.size() + releasedLastFrame.size();
+    }
+
+    /**
+     * @return The number of polls that were answered by a pooled object.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return The number of polls that found the pool empty.
+     */
+    public long getMisses() {
+        return misses;
+    }
+}
@@ -0,0 +1,87 @@
+package pepse.util;
+
+/**
+ * A histogram of the last samples of a value (such as frame times), in buckets of a fixed width.
+ * The samples are kept in a ring buffer so the oldest one leaves its bucket when a new one
+ * arrives, adding a sample is a couple of array writes, and percentiles are read off the
+ * buckets without sorting anything.
+ */
+public class RollingHistogram {
+    private final long[] samples;
+    private final int[] bucketCounts;
+    private final long bucketWidth;
+    private int nextSample;
+    private int sampleCount;
+
+    /**
+     * constructor.
+     *
+     * @param windowSize  - The number of latest samples the histogram is made of.
+     * @param bucketCount - The number of buckets, the last one also holds every larger sample.
+     * @param bucketWidth - The range of values of a single bucket.
+     */
+    public RollingHistogram(int windowSize, int bucketCount, long bucketWidth) {
+        this.samples = new long[windowSize];
+        this.bucketCounts = new int[bucketCount];
+        this.bucketWidth = bucketWidth;
+    }
+
+    /**
+     * Adds a sample, pushing the oldest one out once the window is full.
+     *
+     * @param value - A non negative value.
+     */
+    public void add(long value) {
+        if (sampleCount == samples.length) {
+            bucketCounts[bucketOf(samples[nextSample])]--;
+        } else {
+            sampleCount++;
+        }
+        samples[nextSample] = value;
+        bucketCounts[bucketOf(value)]++;
+        nextSample = (nextSample + 1) % samples.length;
+    }
+
+    /**
+     * @param percentile - A percentile between 0 and 100.
+     * @return The upper bound of the bucket the percentile falls in, 0 if there are no samples.
+     */
+    public long percentile(double percentile) {
+        long rank = (long) Math.ceil(sampleCount * percentile / 100);
+        long seen = 0;
+        for (int bucket = 0; bucket < bucketCounts.length; bucket++) {
+            seen += bucketCounts[bucket];
+            if (seen >= rank && seen > 0) {
+                return (bucket + 1) * bucketWidth;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @param bucket - The index of a bucket.
+     * @return The number of samples in the bucket.
+     */
+    public int getBucketCount(int bucket) {
+        return bucketCounts[bucket];
+    }
+
+    /**
+     * @return The number of buckets.
+     */
+    public int getBuckets() {
+        return bucketCounts.length;
+    }
+
+    /**
+     * @return The number of samples the histogram is currently made of.
+     */
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    // the bucket a value is counted in.
+    private int bucketOf(long value) {
+        return (int) Math.min(value / bucketWidth, bucketCounts.length - 1);
+    }
+}
@@ -0,0 +1,50 @@
+package pepse.util;
+
+import danogl.gui.rendering.TextRenderable;
+
+import java.awt.*;
+
+/**
+ * A TextRenderable whose string can also be changed in a headless JVM.
+ * danogl lays the text out for the screen's resolution whenever the string changes, which
+ * a headless toolkit refuses to report. Since nothing is drawn there, a headless
+ * SafeTextRenderable only keeps the string.
+ */
+public class SafeTextRenderable extends TextRenderable {
+    private static final boolean IS_HEADLESS = GraphicsEnvironment.isHeadless();
+    private String headlessString;
+
+    /**
+     * constructor.
+     *
+     * @param str - The initial string to display.
+     */
+    public SafeTextRenderable(String str) {
+        super(str);
+        this.headlessString = str;
+    }
+
+    /**
+     * Changes the displayed string.
+     *
+     * @param str                     - The new string.
+     * @param multilineHandling       - How line breaks in the string are handled.
+     * @param gapBetweenLinesInPixels - The gap between consecutive lines.
+     */
+    @Override
+    public void setString(String str, MultilineHandling multilineHandling, int gapBetweenLinesInPixels) {
+        if (IS_HEADLESS) {
+            headlessString = str;
+            return;
+        }
+        super.setString(str, multilineHandling, gapBetweenLinesInPixels);
+    }
+
+    /**
+     * @return The displayed string.
+     */
+    @Override
+    public String renderedString() {
+        return IS_HEADLESS ? headlessString : super.renderedString();
+    }
+}
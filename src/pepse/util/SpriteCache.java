@@ -0,0 +1,112 @@
+package pepse.util;
+
+import danogl.gui.ImageReader;
+import danogl.gui.rendering.AnimationRenderable;
+import danogl.gui.rendering.ImageRenderable;
+import danogl.gui.rendering.Renderable;
+
+import java.util.HashMap;
+
+/**
+ * A registry of decoded sprites, so an image is read from disk (or from the jar) only once.
+ * Images are shared by path. Animations are registered under a key and their frames are
+ * decoded once, but an AnimationRenderable keeps its own playback position and is advanced by
+ * every object it is rendered for, so each call to animation hands out a new (cheap) player
+ * over the shared frames. Only image requests count as hits or misses, handing out a player
+ * reads nothing.
+ */
+public class SpriteCache {
+    private static final boolean USE_IMAGE_ALPHA = true;
+    private final ImageReader imageReader;
+    private final HashMap<String, ImageRenderable> images = new HashMap<>();
+    private final HashMap<String, Renderable[]> animationFrames = new HashMap<>();
+    private final HashMap<String, Double> animationClipTimes = new HashMap<>();
+    private long hits;
+    private long misses;
+
+    /**
+     * constructor.
+     *
+     * @param imageReader - Used for reading images from disk or from within a jar.
+     */
+    public SpriteCache(ImageReader imageReader) {
+        this.imageReader = imageReader;
+    }
+
+    /**
+     * Returns the image at the given path, reading it only on the first request.
+     *
+     * @param path - The path of the image, also its key in the cache.
+     * @return A shared renderable of the image.
+     */
+    public ImageRenderable image(String path) {
+        ImageRenderable image = images.get(path);
+        if (image == null) {
+            misses++;
+            image = imageReader.readImage(path, USE_IMAGE_ALPHA);
+            images.put(path, image);
+        } else {
+            hits++;
+        }
+        return image;
+    }
+
+    /**
+     * Registers an animation and decodes all of its frames, does nothing if the key is
+     * already registered.
+     *
+     * @param key              - The name the animation is requested by.
+     * @param timeBetweenClips - The time, in seconds, every frame is shown.
+     * @param paths            - The paths of the frames, in order.
+     */
+    public void registerAnimation(String key, double timeBetweenClips, String... paths) {
+        if (animationFrames.containsKey(key)) {
+            return;
+        }
+        Renderable[] frames = new Renderable[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            frames[i] = image(paths[i]);
+        }
+        animationFrames.put(key, frames);
+        animationClipTimes.put(key, timeBetweenClips);
+    }
+
+    /**
+     * Returns a new player of a registered animation, all players share the decoded frames.
+     *
+     * @param key - The name the animation was registered by.
+     * @return An animation that starts from its first frame.
+     */
+    public AnimationRenderable animation(String key) {
+        Renderable[] frames = animationFrames.get(key);
+        if (frames == null) {
+            throw new IllegalArgumentException("no animation registered as " + key);
+        }
+        return new AnimationRenderable(frames, animationClipTimes.get(key));
+    }
+
+    /**
+     * Reads the given images ahead of time, so the first frame that shows them doesn't stall.
+     *
+     * @param paths - The paths of the images to read.
+     */
+    public void warmUp(String... paths) {
+        for (String path : paths) {
+            image(path);
+        }
+    }
+
+    /**
+     * @return The number of image requests that were answered from the cache.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return The number of image requests that had to read the image.
+     */
+    public long getMisses() {
+        return misses;
+    }
+}
@@ -2,19 +2,17 @@ package pepse.world;
 
 import danogl.GameObject;
 import danogl.collisions.GameObjectCollection;
-import danogl.collisions.Layer;
-import danogl.gui.ImageReader;
 import danogl.gui.UserInputListener;
 import danogl.gui.WindowController;
 import danogl.gui.rendering.AnimationRenderable;
 import danogl.gui.rendering.Renderable;
-import danogl.gui.rendering.TextRenderable;
 import danogl.util.Vector2;
 import pepse.PepseGameManager;
-import pepse.world.trees.Tree;
+import pepse.util.FrameProfiler;
+import pepse.util.SpriteCache;
 
-import java.awt.*;
 import java.awt.event.KeyEvent;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 import java.util.Random;
 
@@ -28,12 +26,14 @@ public class Avatar extends GameObject {
     private static final float VELOCITY_X = 300;
     private static final float VELOCITY_Y = -300;
     private static final int AVATAR_MAX_Y_VELOCITY = 500;
-    private static final int ENERGY_TEXT_DIS_ABOVE_AVATAR = 50;
     private static final int MAX_ENERGY = 100;
+    private static final float RESTING_ENERGY_PER_SECOND = 30;
+    private static final float FLYING_ENERGY_PER_SECOND = 30;
+    private static final float FIRING_ENERGY_PER_SECOND = 120;
     private static final int AVATAR_SIZE = 70;
-    private static final int ENERGY_TEXT_SIZE = 20;
     private static final float TIME_BETWEEN_CLIPS = 0.05f;
     private static final float SIZE_Y_FACTOR = 1.2f;
+    public static final float AVATAR_HEIGHT = AVATAR_SIZE * SIZE_Y_FACTOR;
     public static final String PEPSE_ASSETS_AVATAR_RIGHT_1_PNG = "pepse/assets/avatar-right1.png";
     public static final String PEPSE_ASSETS_AVATAR_RIGHT_2_PNG = "pepse/assets/avatar-right2.png";
     public static final String PEPSE_ASSETS_AVATAR_RIGHT_3_PNG = "pepse/assets/avatar-right3.png";
@@ -46,20 +46,23 @@ public class Avatar extends GameObject {
     public static final String PEPSE_ASSETS_AVATAR_STILL_RIGHT_PNG = "pepse/assets/avatar-still-right.png";
     public static final String PEPSE_ASSETS_AVATAR_FLY_RIGHT_PNG = "pepse/assets/avatar-fly-right.png";
     public static final String PEPSE_ASSETS_AVATAR_FIRE_JPG = "pepse/assets/avatar-fire.jpg";
+    private static final String RUNNING_ANIMATION_KEY = "avatar-running";
+    private static final int PREFETCH_DISTANCE = ChunkPipeline.CHUNK_COLUMNS * Block.SIZE;
+    // how far past the created range the world may reach: the prefetched chunks, and the rest of
+    // the last chunk createInRange commits.
+    private static final int TURN_SWEEP_DISTANCE = PREFETCH_DISTANCE + ChunkPipeline.CHUNK_COLUMNS * Block.SIZE;
     private static GameObjectCollection gameObjects;
-    private static ImageReader imageReader;
+    private static SpriteCache sprites;
     private static AnimationRenderable running_animation;
     private static Avatar avatar;
     private static UserInputListener inputListener;
     private static double energy;
-    private static GameObject energyText;
-    private static TextRenderable energyTextRenderable;
     private final Random random;
-    private Terrain terrain;
+    private ChunkPipeline world;
+    private FrameProfiler profiler;
     private float windowHalfX;
     private int terrain_buffer;
     private boolean isRunningAnimation;
-    private Tree tree;
     private boolean isFacingRight = true;
 
     /**
@@ -74,15 +77,25 @@ public class Avatar extends GameObject {
         super(topLeftCorner, dimensions, renderable);
         this.random = new Random(Objects.hash(PepseGameManager.SEED,
                 getTopLeftCorner().x() * PRIME_NUM + getTopLeftCorner().y()));
-        running_animation = new AnimationRenderable(new String[]{
+        running_animation = sprites.animation(RUNNING_ANIMATION_KEY);
+
+    }
+
+    /**
+     * Reads every sprite of the avatar into the cache.
+     *
+     * @param sprites - The sprite cache of the game.
+     */
+    public static void loadSprites(SpriteCache sprites) {
+        sprites.registerAnimation(RUNNING_ANIMATION_KEY, TIME_BETWEEN_CLIPS,
                 PEPSE_ASSETS_AVATAR_RIGHT_1_PNG,
                 PEPSE_ASSETS_AVATAR_RIGHT_2_PNG,
                 PEPSE_ASSETS_AVATAR_RIGHT_3_PNG,
                 PEPSE_ASSETS_AVATAR_RIGHT_4_PNG,
                 PEPSE_ASSETS_AVATAR_RIGHT_5_PNG,
-                PEPSE_ASSETS_AVATAR_RIGHT_6_PNG},
-                imageReader, true, TIME_BETWEEN_CLIPS);
-
+                PEPSE_ASSETS_AVATAR_RIGHT_6_PNG);
+        sprites.warmUp(PEPSE_ASSETS_AVATAR_LAND_RIGHT_PNG, PEPSE_ASSETS_AVATAR_STILL_RIGHT_PNG,
+                PEPSE_ASSETS_AVATAR_FLY_RIGHT_PNG, PEPSE_ASSETS_AVATAR_FIRE_JPG);
     }
 
     /**
@@ -93,24 +106,18 @@ public class Avatar extends GameObject {
      * @param layer         - The number of the layer to which the created avatar should be added.
      * @param topLeftCorner - The location of the top-left corner of the created avatar.
      * @param inputListener - Used for reading input from the user.
-     * @param imageReader   - Used for reading images from disk or from within a jar.
+     * @param sprites       - The sprite cache of the game, the sprites of the avatar must already
+     *                      be loaded into it (see loadSprites).
      * @return A newly created representing the avatar.
      */
     public static Avatar create(GameObjectCollection gameObjects, int layer, Vector2 topLeftCorner,
-                                UserInputListener inputListener, ImageReader imageReader) {
+                                UserInputListener inputListener, SpriteCache sprites) {
         Avatar.gameObjects = gameObjects;
-        Avatar.imageReader = imageReader;
-        avatar = new Avatar(topLeftCorner, new Vector2(AVATAR_SIZE, AVATAR_SIZE * SIZE_Y_FACTOR), null);
+        Avatar.sprites = sprites;
+        avatar = new Avatar(topLeftCorner, new Vector2(AVATAR_SIZE, AVATAR_HEIGHT), null);
         avatar.physics().preventIntersectionsFromDirection(Vector2.ZERO);
         avatar.transform().setAccelerationY(GRAVITY);
         Avatar.inputListener = inputListener;
-        Avatar.energyTextRenderable = new TextRenderable("");
-        energyTextRenderable.setColor(Color.RED);
-        Avatar.energyText = new GameObject(Vector2.ZERO, Vector2.ONES.mult(ENERGY_TEXT_SIZE),
-                energyTextRenderable);
-
-        gameObjects.addGameObject(energyText, Layer.UI);
-
         avatar.setTag(AVATAR_TAG);
         Avatar.energy = MAX_ENERGY;
         gameObjects.addGameObject(avatar, layer);
@@ -120,17 +127,64 @@ public class Avatar extends GameObject {
     /**
      * set up variables regarding the visual objects of the game to handel deletion and creation.
      *
-     * @param terrain          - an object handling the terrain of the game.
-     * @param tree             - an object handling the trees of the game.
+     * @param world            - an object streaming the terrain and the trees of the game.
      * @param windowController - for window dimensions.
      * @param terrain_buffer   - buffer fixes for visual glitches.
      */
-    public void setTerrainChange(Terrain terrain,
-                                 Tree tree, WindowController windowController, int terrain_buffer) {
-        this.terrain = terrain;
+    public void setTerrainChange(ChunkPipeline world, WindowController windowController,
+                                 int terrain_buffer) {
+        this.world = world;
         this.windowHalfX = windowController.getWindowDimensions().x() / 2f;
         this.terrain_buffer = terrain_buffer;
-        this.tree = tree;
+    }
+
+    /**
+     * @return The energy the avatar has left for flying and firing.
+     */
+    public double getEnergy() {
+        return energy;
+    }
+
+    /**
+     * @return The number of bytes writeState writes.
+     */
+    public int getStateBytes() {
+        return 2 * Float.BYTES + Double.BYTES + Integer.BYTES;
+    }
+
+    /**
+     * Writes what a saved game keeps of the avatar besides its location: its velocity, energy
+     * and direction, see readState.
+     *
+     * @param buffer - The buffer of the saved game.
+     */
+    public void writeState(ByteBuffer buffer) {
+        buffer.putFloat(getVelocity().x());
+        buffer.putFloat(getVelocity().y());
+        buffer.putDouble(energy);
+        buffer.putInt(isFacingRight ? 1 : 0);
+    }
+
+    /**
+     * Restores what writeState wrote.
+     *
+     * @param buffer - The buffer of the saved game, positioned at the avatar's state.
+     */
+    public void readState(ByteBuffer buffer) {
+        setVelocity(new Vector2(buffer.getFloat(), buffer.getFloat()));
+        energy = buffer.getDouble();
+        isFacingRight = buffer.getInt() != 0;
+        renderer().setIsFlippedHorizontally(!isFacingRight);
+    }
+
+    /**
+     * setting up a profiler to add the time of every update to. The streaming the avatar forces
+     * when it runs to the edge of the created world is timed as streaming only, not as avatar.
+     *
+     * @param profiler - The profiler, or null to stop profiling.
+     */
+    public void setProfiler(FrameProfiler profiler) {
+        this.profiler = profiler;
     }
 
     /**
@@ -145,17 +199,16 @@ public class Avatar extends GameObject {
      */
     @Override
     public void update(float deltaTime) {
+        long start = System.nanoTime();
+        long startStreamingNanos = streamingNanos();
         super.update(deltaTime);
         float avatarX = avatar.getTopLeftCorner().x();
         float xVel = 0;
-
-        energyText.setCenter(avatar.getCenter().add(Vector2.UP.mult(ENERGY_TEXT_DIS_ABOVE_AVATAR)));
-        energyTextRenderable.setString("" + (int) energy);
         this.isRunningAnimation = false;
 
         // avatar is mid air
         if (Math.abs(getVelocity().y()) > MID_AIR_INDICATOR)
-            renderer().setRenderable(imageReader.readImage(PEPSE_ASSETS_AVATAR_LAND_RIGHT_PNG, true));
+            renderer().setRenderable(sprites.image(PEPSE_ASSETS_AVATAR_LAND_RIGHT_PNG));
 
         // limiting the max downwards velocity
         if (avatar.getVelocity().y() > AVATAR_MAX_Y_VELOCITY)
@@ -169,8 +222,8 @@ public class Avatar extends GameObject {
         // avatar is not moving horizontally
         if (getVelocity().y() == 0) {
             if (!isRunningAnimation)
-                renderer().setRenderable(imageReader.readImage(PEPSE_ASSETS_AVATAR_STILL_RIGHT_PNG, true));
-            if (energy < MAX_ENERGY) energy += 0.5f;
+                renderer().setRenderable(sprites.image(PEPSE_ASSETS_AVATAR_STILL_RIGHT_PNG));
+            energy = Math.min(MAX_ENERGY, energy + RESTING_ENERGY_PER_SECOND * deltaTime);
             if (inputListener.isKeyPressed(KeyEvent.VK_SPACE)) transform().setVelocityY(VELOCITY_Y);
         }
 
@@ -178,36 +231,52 @@ public class Avatar extends GameObject {
         if (energy > 0 && inputListener.isKeyPressed(KeyEvent.VK_SPACE) &&
                 inputListener.isKeyPressed(KeyEvent.VK_SHIFT)) {
             transform().setVelocityY(VELOCITY_Y);
-            energy -= 0.5f;
-            renderer().setRenderable(imageReader.readImage(PEPSE_ASSETS_AVATAR_FLY_RIGHT_PNG, true));
+            energy -= FLYING_ENERGY_PER_SECOND * deltaTime;
+            renderer().setRenderable(sprites.image(PEPSE_ASSETS_AVATAR_FLY_RIGHT_PNG));
         }
 
         // randomly creating carrots:
         if (random.nextFloat() > 0.99)
             Carrot.create();
         // avatar in firing
-        if (energy > 2 && inputListener.isKeyPressed(KeyEvent.VK_CONTROL)) {
-            energy -= 2f;
-            renderer().setRenderable(imageReader.readImage(PEPSE_ASSETS_AVATAR_FIRE_JPG, true));
-            FireBall.create(gameObjects, imageReader, getTopLeftCorner(), isFacingRight);
+        float firingEnergy = FIRING_ENERGY_PER_SECOND * deltaTime;
+        if (energy > firingEnergy && inputListener.isKeyPressed(KeyEvent.VK_CONTROL)) {
+            energy -= firingEnergy;
+            renderer().setRenderable(sprites.image(PEPSE_ASSETS_AVATAR_FIRE_JPG));
+            FireBall.create(gameObjects, sprites, getTopLeftCorner(), isFacingRight);
         }
+        if (profiler != null) {
+            profiler.add(FrameProfiler.Section.AVATAR,
+                    System.nanoTime() - start - (streamingNanos() - startStreamingNanos));
+        }
+    }
+
+    // the time spent streaming the world so far in the current frame, 0 when not profiling.
+    private long streamingNanos() {
+        if (profiler == null) {
+            return 0;
+        }
+        return profiler.getNanos(FrameProfiler.Section.TERRAIN_STREAMING) +
+                profiler.getNanos(FrameProfiler.Section.TREE_STREAMING);
     }
 
     // when avatar is heading right, apply animation, create and delete object according to location.
     private float avatarHeadingRight(float avatarX, float xVel) {
+        if (!isFacingRight) { // turning around, what was streamed in ahead on the left is behind now
+            world.deleteInRange((int) (avatarX - windowHalfX) - terrain_buffer - TURN_SWEEP_DISTANCE,
+                    (int) (avatarX - windowHalfX) - terrain_buffer);
+        }
         this.isFacingRight = true;
         renderer().setIsFlippedHorizontally(false);
         startRunningAnimation();
         xVel += VELOCITY_X;
 
-        terrain.createInRange((int) (avatarX + windowHalfX), (int) (avatarX + windowHalfX) + terrain_buffer);
+        world.createInRange((int) (avatarX + windowHalfX), (int) (avatarX + windowHalfX) + terrain_buffer);
 
-        tree.createInRange((int) (avatarX + windowHalfX), (int) (avatarX + windowHalfX) + terrain_buffer);
+        world.prefetch((int) (avatarX + windowHalfX) + terrain_buffer,
+                (int) (avatarX + windowHalfX) + terrain_buffer + PREFETCH_DISTANCE);
 
-        terrain.deleteInRange((int) (avatarX - windowHalfX) - terrain_buffer * 2,
-                (int) (avatarX - windowHalfX) - terrain_buffer);
-
-        tree.deleteInRange((int) (avatarX - windowHalfX) - terrain_buffer * 2,
+        world.deleteInRange((int) (avatarX - windowHalfX) - terrain_buffer * 2,
                 (int) (avatarX - windowHalfX) - terrain_buffer);
 
         return xVel;
@@ -216,19 +285,21 @@ public class Avatar extends GameObject {
 
     // when avatar is heading left, apply animation, create and delete object according to location.
     private float avatarHeadingLeft(float avatarX, float xVel) {
+        if (isFacingRight) { // turning around, what was streamed in ahead on the right is behind now
+            world.deleteInRange((int) (avatarX + windowHalfX) + terrain_buffer,
+                    (int) (avatarX + windowHalfX) + terrain_buffer + TURN_SWEEP_DISTANCE);
+        }
         this.isFacingRight = false;
         renderer().setIsFlippedHorizontally(true);
         startRunningAnimation();
         xVel -= VELOCITY_X;
 
-        terrain.createInRange((int) (avatarX - windowHalfX) - terrain_buffer, (int) (avatarX - windowHalfX));
-
-        tree.createInRange((int) (avatarX - windowHalfX) - terrain_buffer, (int) (avatarX - windowHalfX));
+        world.createInRange((int) (avatarX - windowHalfX) - terrain_buffer, (int) (avatarX - windowHalfX));
 
-        terrain.deleteInRange((int) (avatarX + windowHalfX) + terrain_buffer,
-                (int) (avatarX + windowHalfX) + terrain_buffer * 2);
+        world.prefetch((int) (avatarX - windowHalfX) - terrain_buffer - PREFETCH_DISTANCE,
+                (int) (avatarX - windowHalfX) - terrain_buffer);
 
-        tree.deleteInRange((int) (avatarX + windowHalfX) + terrain_buffer,
+        world.deleteInRange((int) (avatarX + windowHalfX) + terrain_buffer,
                 (int) (avatarX + windowHalfX) + terrain_buffer * 2);
         return xVel;
     }
@@ -19,7 +19,19 @@ public class Block extends GameObject {
      * @param renderable    The renderable representing the object. Can be null, in which case
      */
     public Block(Vector2 topLeftCorner, Renderable renderable) {
-        super(topLeftCorner, Vector2.ONES.mult(SIZE), renderable);
+        this(topLeftCorner, 1, renderable);
+    }
+
+    /**
+     * Construct a column of blocks stacked on top of each other, as a single GameObject instance.
+     *
+     * @param topLeftCorner Position of the top block, in window coordinates (pixels).
+     *                      Note that (0,0) is the top-left corner of the window.
+     * @param blocksHigh    The number of blocks in the column.
+     * @param renderable    The renderable representing the whole column. Can be null, in which case
+     */
+    public Block(Vector2 topLeftCorner, int blocksHigh, Renderable renderable) {
+        super(topLeftCorner, new Vector2(SIZE, SIZE * blocksHigh), renderable);
         physics().preventIntersectionsFromDirection(Vector2.ZERO);
         physics().setMass(GameObjectPhysics.IMMOVABLE_MASS);
     }
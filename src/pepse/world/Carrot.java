@@ -2,16 +2,14 @@ package pepse.world;
 
 import danogl.GameObject;
 import danogl.collisions.GameObjectCollection;
-import danogl.collisions.Layer;
-import danogl.components.ScheduledTask;
-import danogl.components.Transition;
-import danogl.gui.ImageReader;
 import danogl.gui.rendering.Renderable;
-import danogl.gui.rendering.TextRenderable;
 import danogl.util.Vector2;
 import pepse.PepseGameManager;
+import pepse.util.FrameProfiler;
+import pepse.util.ObjectPool;
+import pepse.util.SpriteCache;
 
-import java.awt.*;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 import java.util.Random;
 import java.util.function.Function;
@@ -26,30 +24,28 @@ public class Carrot extends GameObject {
     public static final int Y_BOUND = 300;
     public static final int X_BOUND = 1000;
     public static final int X_BOUND_OFFSET = 500;
-    public static final int TIMER_TEXT_Y_OFFSET = 100;
     public static final int PRIME_NUM = 31;
-    public static final int TIMER_TEXT_SIZE = 40;
-    public static final int TIMER_TEXT_X_OFFSET = 60;
-    private static GameObject timerText;
-    private static TextRenderable timerTextRenderable;
+    public static final int POOL_CAPACITY = 32;
+    private static final Vector2 DIMENSIONS = Vector2.ONES.mult(CARROT_SIZE);
+    private static final int CARROT_STATE_BYTES = 7 * Float.BYTES;
+    private static final ObjectPool<Carrot> pool = new ObjectPool<>(POOL_CAPACITY);
     public static int carrotDestroyed = 0;
     public static int highScore = 0;
     public static final int CARROT_SPEED = 400;
-    private static final float CARROT_TEXT_SIZE = TIMER_TEXT_Y_OFFSET;
-    public static final String CARROTS_DESTROYED_SO_FAR_TEXT =
-            "Use Ctrl to destroy as many flying carrots\nas you can before the timer ends!" +
-                    "\nSo far destroyed: %d\nHigh score: %d";
-    private static TextRenderable carrotTextRenderable;
-    private static GameObject carrotText;
+    private static final Vector2 INITIAL_VELOCITY = Vector2.RIGHT.mult(CARROT_SPEED);
     private static int carrotLayer;
-    private static ImageReader imageReader;
-    private static Vector2 windowDimensions;
+    private static SpriteCache sprites;
 
 
     private static GameObjectCollection gameObjects;
     private static Avatar avatar;
     private static Random random;
     private static Function<Float, Float> groundHeightAtFunc;
+    private static VisibilityManager visibility;
+    private static FrameProfiler profiler;
+    private float age;
+    private boolean isActive;
+    private float sleptTime;
 
     /**
      * Construct a new GameObject instance.
@@ -62,51 +58,42 @@ public class Carrot extends GameObject {
      * @param renderable    The renderable representing the object. Can be null, in which case
      */
     public Carrot(Avatar avatar, GameObjectCollection gameObjects, Vector2 topLeftCorner, Vector2 dimensions,
-                  Renderable renderable, int layer, ImageReader imageReader,
-                  Vector2 windowDimensions) {
+                  Renderable renderable, int layer, SpriteCache sprites) {
         super(topLeftCorner, dimensions, renderable);
         Carrot.carrotLayer = layer;
-        Carrot.imageReader = imageReader;
-        Carrot.windowDimensions = windowDimensions;
+        Carrot.sprites = sprites;
         Carrot.avatar = avatar;
         Carrot.gameObjects = gameObjects;
-        Carrot.random = new Random(Objects.hash(PepseGameManager.SEED,
-                topLeftCorner.x() * PRIME_NUM + topLeftCorner.y()));
-
-
-        if (carrotTextRenderable == null) {
-            setUpOnScreenTexts();
+        if (Carrot.random == null) {
+            Carrot.random = new Random();
         }
+        seedRandom(topLeftCorner);
     }
 
-    // setting up every text output the user need on the screen
-    private void setUpOnScreenTexts() {
-        Carrot.carrotTextRenderable = new TextRenderable("");
-        Carrot.carrotTextRenderable.setColor(Color.BLUE);
-        Carrot.carrotText = new GameObject(Vector2.ZERO, Vector2.ONES.mult(CARROT_TEXT_SIZE),
-                carrotTextRenderable);
-        Carrot.gameObjects.addGameObject(carrotText, Layer.UI);
-        Carrot.timerTextRenderable = new TextRenderable("");
-        Carrot.timerTextRenderable.setColor(Color.RED);
-        Carrot.timerText = new GameObject(Vector2.ZERO, Vector2.ONES.mult(TIMER_TEXT_SIZE),
-                timerTextRenderable);
-        Carrot.gameObjects.addGameObject(timerText, Layer.UI);
-        new Transition<>(timerText,
-                (i) -> timerTextRenderable.setString(String.valueOf((i.intValue()))),
-                60f,
-                0f,
-                Transition.LINEAR_INTERPOLATOR_FLOAT,
-                TIMER_TEXT_X_OFFSET,
-                Transition.TransitionType.TRANSITION_LOOP, Carrot::updateHighScore);
-    }
-
-    // called every time the timer ends
-    private static void updateHighScore() {
+    // seeding the shared random by the location of the latest carrot
+    private static void seedRandom(Vector2 topLeftCorner) {
+        random.setSeed(Objects.hash(PepseGameManager.SEED,
+                topLeftCorner.x() * PRIME_NUM + topLeftCorner.y()));
+    }
+
+    /**
+     * Ends a round of the game, called by the Hud every time its timer runs out.
+     */
+    static void updateHighScore() {
         if (highScore <= carrotDestroyed)
             highScore = carrotDestroyed;
         carrotDestroyed = 0;
     }
 
+    /**
+     * Reads the sprite of the carrot into the cache.
+     *
+     * @param sprites - The sprite cache of the game.
+     */
+    public static void loadSprites(SpriteCache sprites) {
+        sprites.warmUp(CARROT_IMG_PATH);
+    }
+
     /**
      * setting up a function in order for the carrots to know where the ground is
      *
@@ -116,6 +103,24 @@ public class Carrot extends GameObject {
         Carrot.groundHeightAtFunc = groundHeightAtFunc;
     }
 
+    /**
+     * setting up the manager that puts the carrots out of sight to sleep.
+     *
+     * @param visibility - The visibility manager of the game, or null to always simulate them.
+     */
+    public static void setVisibility(VisibilityManager visibility) {
+        Carrot.visibility = visibility;
+    }
+
+    /**
+     * setting up a profiler to add the time of every carrot's update to.
+     *
+     * @param profiler - The profiler, or null to stop profiling.
+     */
+    public static void setProfiler(FrameProfiler profiler) {
+        Carrot.profiler = profiler;
+    }
+
     /**
      * Should be called once per frame.
      *
@@ -128,14 +133,25 @@ public class Carrot extends GameObject {
      */
     @Override
     public void update(float deltaTime) {
+        long start = System.nanoTime();
+        step(deltaTime);
+        if (profiler != null) {
+            profiler.add(FrameProfiler.Section.CARROTS, System.nanoTime() - start);
+        }
+    }
+
+    // moving the carrot through a single frame.
+    private void step(float deltaTime) {
+        if (isAsleep(deltaTime)) {
+            return;
+        }
         super.update(deltaTime);
-        carrotTextRenderable.setString(String.format(CARROTS_DESTROYED_SO_FAR_TEXT,
-                carrotDestroyed, highScore));
-        carrotText.setCenter(avatar.getTopLeftCorner().add(new Vector2(
-                -(windowDimensions.x() / 2 - CARROT_TEXT_X_OFFSET), -windowDimensions.y() / 2)));
-        timerText.setCenter(avatar.getTopLeftCorner().add(new Vector2(
-                -(windowDimensions.x() / 2 - TIMER_TEXT_X_OFFSET),
-                -windowDimensions.y() / 2 + TIMER_TEXT_Y_OFFSET)));
+        if (isActive) {
+            age += deltaTime;
+            if (age >= LIFE_SPAN) {
+                expire();
+            }
+        }
 
         if (random.nextFloat() >= CARROT_MOVEMENT_CHANGE_FACTOR) {
             setVelocity(getVelocity().rotated(CARROT_TEXT_X_OFFSET));
@@ -143,25 +159,163 @@ public class Carrot extends GameObject {
         }
         Float terrainHeight = groundHeightAtFunc.apply(getTopLeftCorner().x());
         if (getTopLeftCorner().y() + CARROT_SIZE > terrainHeight) {
-            setVelocity(Vector2.UP.mult(CARROT_SPEED));
-            renderer().setRenderableAngle(CARROT_ANGLE_HEADING_UP);
+            headUp();
+        }
+    }
+
+    /**
+     * @param other The other GameObject.
+     * @return false while the carrot is asleep, its position is then out of date.
+     */
+    @Override
+    public boolean shouldCollideWith(GameObject other) {
+        return sleptTime == 0 && super.shouldCollideWith(other);
+    }
+
+    // checks if the carrot sleeps through this frame. While asleep it doesn't change direction,
+    // so where it would be is known without moving it (or asking where the ground is). Once
+    // awake, it's moved there, and onto the ground if it would have hit it.
+    private boolean isAsleep(float deltaTime) {
+        if (visibility == null || !isActive) {
+            return false;
         }
+        float x = getTopLeftCorner().x() + getVelocity().x() * sleptTime;
+        float y = getTopLeftCorner().y() + getVelocity().y() * sleptTime;
+        if (visibility.isAwake(x, y, CARROT_SIZE, CARROT_SIZE)) {
+            if (sleptTime > 0) {
+                age += sleptTime;
+                sleptTime = 0;
+                float terrainHeight = groundHeightAtFunc.apply(x);
+                if (y + CARROT_SIZE > terrainHeight) {
+                    y = terrainHeight - CARROT_SIZE;
+                    headUp();
+                }
+                setTopLeftCorner(new Vector2(x, y));
+            }
+            return false;
+        }
+        sleptTime += deltaTime;
+        if (age + sleptTime >= LIFE_SPAN) {
+            expire();
+        }
+        return true;
+    }
+
+    // turning the carrot upwards, away from the ground
+    private void headUp() {
+        setVelocity(Vector2.UP.mult(CARROT_SPEED));
+        renderer().setRenderableAngle(CARROT_ANGLE_HEADING_UP);
     }
 
     /**
-     * creates a randomly placed flying carrot
+     * creates a randomly placed flying carrot, reusing an expired one when possible
      */
     public static void create() {
         Vector2 topLeftCorner = new Vector2(
                 avatar.getTopLeftCorner().x() + random.nextInt(X_BOUND) - X_BOUND_OFFSET,
                 avatar.getTopLeftCorner().y() - random.nextInt(Y_BOUND));
-        Carrot carrot = new Carrot(avatar, gameObjects, topLeftCorner, Vector2.ONES.mult(CARROT_SIZE),
-                imageReader.readImage(CARROT_IMG_PATH, true), carrotLayer, imageReader,
-                windowDimensions);
-        carrot.setVelocity(Vector2.RIGHT.mult(CARROT_SPEED));
+        spawn(topLeftCorner, INITIAL_VELOCITY, 0, 0, 0);
+    }
+
+    // adding a flying carrot to the game, reusing an expired one when possible
+    private static void spawn(Vector2 topLeftCorner, Vector2 velocity, float angle, float age,
+                              float sleptTime) {
+        Carrot carrot = pool.poll();
+        if (carrot == null) {
+            carrot = new Carrot(avatar, gameObjects, topLeftCorner, DIMENSIONS,
+                    sprites.image(CARROT_IMG_PATH), carrotLayer, sprites);
+        } else {
+            seedRandom(topLeftCorner);
+            carrot.setTopLeftCorner(topLeftCorner);
+        }
+        carrot.renderer().setRenderableAngle(angle);
+        carrot.setVelocity(velocity);
+        carrot.age = age;
+        carrot.sleptTime = sleptTime;
+        carrot.isActive = true;
         gameObjects.addGameObject(carrot, carrotLayer);
-        new ScheduledTask(carrot,
-                LIFE_SPAN,
-                false, () -> gameObjects.removeGameObject(carrot, carrotLayer));
+    }
+
+    /**
+     * @return The number of bytes writeState writes.
+     */
+    public static int getStateBytes() {
+        return 3 * Integer.BYTES + countFlying() * CARROT_STATE_BYTES;
+    }
+
+    /**
+     * Writes what a saved game keeps of the carrots: the score, and the location, velocity,
+     * angle, age and sleeping time of every flying carrot, see readState.
+     *
+     * @param buffer - The buffer of the saved game.
+     */
+    public static void writeState(ByteBuffer buffer) {
+        buffer.putInt(carrotDestroyed);
+        buffer.putInt(highScore);
+        buffer.putInt(countFlying());
+        if (gameObjects.isLayerEmpty(carrotLayer)) {
+            return;
+        }
+        for (GameObject object : gameObjects.objectsInLayer(carrotLayer)) {
+            Carrot carrot = (Carrot) object;
+            if (carrot.isActive) {
+                buffer.putFloat(carrot.getTopLeftCorner().x());
+                buffer.putFloat(carrot.getTopLeftCorner().y());
+                buffer.putFloat(carrot.getVelocity().x());
+                buffer.putFloat(carrot.getVelocity().y());
+                buffer.putFloat(carrot.renderer().getRenderableAngle());
+                buffer.putFloat(carrot.age);
+                buffer.putFloat(carrot.sleptTime);
+            }
+        }
+    }
+
+    /**
+     * Restores what writeState wrote, the carrots are added to the game.
+     *
+     * @param buffer - The buffer of the saved game, positioned at the carrots' state.
+     */
+    public static void readState(ByteBuffer buffer) {
+        carrotDestroyed = buffer.getInt();
+        highScore = buffer.getInt();
+        int carrots = buffer.getInt();
+        for (int i = 0; i < carrots; i++) {
+            Vector2 topLeftCorner = new Vector2(buffer.getFloat(), buffer.getFloat());
+            Vector2 velocity = new Vector2(buffer.getFloat(), buffer.getFloat());
+            spawn(topLeftCorner, velocity, buffer.getFloat(), buffer.getFloat(), buffer.getFloat());
+        }
+    }
+
+    // the number of carrots flying in the game.
+    private static int countFlying() {
+        int count = 0;
+        if (!gameObjects.isLayerEmpty(carrotLayer)) {
+            for (GameObject object : gameObjects.objectsInLayer(carrotLayer)) {
+                if (((Carrot) object).isActive) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Removes a flying carrot from the game and hands it back to the pool, does nothing if the
+     * carrot already expired.
+     */
+    public void expire() {
+        if (!isActive) {
+            return;
+        }
+        isActive = false;
+        gameObjects.removeGameObject(this, carrotLayer);
+        pool.release(this);
+    }
+
+    /**
+     * @return The pool expired carrots are reused from.
+     */
+    public static ObjectPool<Carrot> getPool() {
+        return pool;
     }
 }
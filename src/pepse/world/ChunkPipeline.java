@@ -0,0 +1,367 @@
+package pepse.world;
+
+import pepse.util.ColumnBitSet;
+import pepse.util.FrameProfiler;
+import pepse.world.trees.Tree;
+import pepse.world.trees.TreeChunk;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams the world in chunks of CHUNK_COLUMNS columns.
+ * The noise, colors, tree heights and leaf seeds of a chunk are worked out by a pool of
+ * background workers (see Terrain.describe and Tree.describe), ahead of the avatar's direction
+ * of travel. Chunks are committed in the order they were requested, so the world does not
+ * depend on the timing of the workers. With a WorldCache, a chunk that was described before
+ * (in this run or an earlier one) is viewed in the cache instead of being generated again.
+ * Creating the generated columns and evicting the columns left behind are both queued, and
+ * update drains the queues column by column until a per-frame budget of game objects or of
+ * time is spent, the rest is deferred to the next frames. Only columns that are about to be
+ * seen skip the queue (see createInRange). Deleting a range also cancels the columns of the
+ * pending chunks in it, so chunks requested before the avatar turned around are not committed
+ * behind it.
+ */
+public class ChunkPipeline {
+    public static final int CHUNK_COLUMNS = 4;
+    private static final String WORKER_NAME = "chunk-worker-";
+    private final Terrain terrain;
+    private final Tree tree;
+    private final int objectBudget;
+    private final long timeBudgetNanos;
+    private final ExecutorService workers;
+    private final ArrayDeque<PendingChunk> pendingChunks = new ArrayDeque<>();
+    private final ColumnBitSet pendingChunkIndices = new ColumnBitSet();
+    private final ArrayDeque<Integer> evictionQueue = new ArrayDeque<>();
+    private final ColumnBitSet queuedEvictions = new ColumnBitSet();
+    private final ColumnBitSet cancelledColumns = new ColumnBitSet();
+    private int committedColumnsInHead;
+    private long deferredFrames;
+    private long deferredColumns;
+    private FrameProfiler profiler;
+    private WorldCache cache;
+
+    /**
+     * constructor.
+     *
+     * @param terrain      - The terrain of the game.
+     * @param tree         - The trees of the game.
+     * @param workerCount     - The number of background threads generating chunks.
+     * @param objectBudget    - The number of game objects update may add or remove per frame.
+     * @param timeBudgetNanos - The time, in nanoseconds, update may spend per frame.
+     */
+    public ChunkPipeline(Terrain terrain, Tree tree, int workerCount, int objectBudget,
+                         long timeBudgetNanos) {
+        this.terrain = terrain;
+        this.tree = tree;
+        this.objectBudget = objectBudget;
+        this.timeBudgetNanos = timeBudgetNanos;
+        AtomicInteger workerNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerCount, task -> {
+            Thread worker = new Thread(task, WORKER_NAME + workerNumber.incrementAndGet());
+            worker.setDaemon(true);
+            return worker;
+        });
+    }
+
+    /**
+     * Starts generating the chunks in a given range of x-values in the background, nothing is
+     * added to the game until update or createInRange create them.
+     *
+     * @param minX - The lower bound of the given range.
+     * @param maxX - The upper bound of the given range.
+     */
+    public void prefetch(int minX, int maxX) {
+        int lastChunk = Math.floorDiv(Math.floorDiv(maxX - 1, Block.SIZE), CHUNK_COLUMNS);
+        for (int chunk = Math.floorDiv(Math.floorDiv(minX, Block.SIZE), CHUNK_COLUMNS);
+             chunk <= lastChunk; chunk++) {
+            request(chunk);
+        }
+    }
+
+    /**
+     * Creates the world in a given range of x-values before returning, using the chunks that
+     * were prefetched and generating the rest right away.
+     *
+     * @param minX - The lower bound of the given range.
+     * @param maxX - The upper bound of the given range.
+     */
+    public void createInRange(int minX, int maxX) {
+        prefetch(minX, maxX);
+        int lastColumn = Math.floorDiv(maxX - 1, Block.SIZE);
+        for (int column = -Math.floorDiv(-minX, Block.SIZE); column <= lastColumn; column++) {
+            queuedEvictions.clear(column);
+            while (!terrain.isColumnCreated(column) && !pendingChunks.isEmpty()) {
+                commitHead(CHUNK_COLUMNS);
+            }
+        }
+    }
+
+    /**
+     * Queues the deletion of the world in a given range of x-values, the columns are removed by
+     * update as the budget allows. The columns in the range that are still pending are cancelled,
+     * they are skipped when their chunk is committed unless they're requested again first.
+     *
+     * @param minX - The lower bound of the given range.
+     * @param maxX - The upper bound of the given range.
+     */
+    public void deleteInRange(int minX, int maxX) {
+        int lastColumn = Math.floorDiv(maxX - 1, Block.SIZE);
+        for (int column = -Math.floorDiv(-minX, Block.SIZE); column <= lastColumn; column++) {
+            if (terrain.isColumnCreated(column)) {
+                if (queuedEvictions.set(column)) {
+                    evictionQueue.addLast(column);
+                }
+            } else if (pendingChunkIndices.get(Math.floorDiv(column, CHUNK_COLUMNS))) {
+                cancelledColumns.set(column);
+            }
+        }
+    }
+
+    /**
+     * Should be called once per frame, creates the columns of the chunks that are already
+     * generated and then evicts the queued columns, until the frame's budget is spent.
+     */
+    public void update() {
+        long startNanos = System.nanoTime();
+        int objects = 0;
+        while (hasReadyColumn() || !evictionQueue.isEmpty()) {
+            if (objects >= objectBudget || System.nanoTime() - startNanos >= timeBudgetNanos) {
+                deferredFrames++;
+                deferredColumns += getCreateQueueDepth() + getEvictQueueDepth();
+                return;
+            }
+            objects += hasReadyColumn() ? commitHead(1) : evictNext();
+        }
+    }
+
+    /**
+     * @return The number of requested columns that are not in the game yet.
+     */
+    public int getCreateQueueDepth() {
+        return pendingChunks.size() * CHUNK_COLUMNS - committedColumnsInHead;
+    }
+
+    /**
+     * @return The number of columns waiting to be evicted.
+     */
+    public int getEvictQueueDepth() {
+        return queuedEvictions.size();
+    }
+
+    /**
+     * @return The number of frames update ran out of budget before the queues were drained.
+     */
+    public long getDeferredFrames() {
+        return deferredFrames;
+    }
+
+    /**
+     * Stops the background workers, the pipeline must not be used afterwards.
+     */
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Sets a cache the workers look chunks up in before generating them, and store the chunks
+     * they generate in. Should be set before any chunk is requested.
+     *
+     * @param cache - A cache of chunks of getChunkBytes bytes, or null to always generate them.
+     */
+    public void setCache(WorldCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * @return The size, in bytes, of a chunk kept in a WorldCache.
+     */
+    public int getChunkBytes() {
+        return terrain.getChunkBytes(CHUNK_COLUMNS) + tree.getChunkBytes(CHUNK_COLUMNS);
+    }
+
+    /**
+     * Sets a profiler to add the time spent creating and evicting columns to, split into the
+     * terrain's part and the trees' part.
+     *
+     * @param profiler - The profiler, or null to stop profiling.
+     */
+    public void setProfiler(FrameProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * @return The total number of queued columns left for a later frame because of the budget,
+     * summed over every deferred frame.
+     */
+    public long getDeferredColumns() {
+        return deferredColumns;
+    }
+
+    // checks if the oldest pending chunk is generated, so its columns can be created.
+    private boolean hasReadyColumn() {
+        return !pendingChunks.isEmpty() && pendingChunks.peekFirst().description.isDone();
+    }
+
+    // evicting the oldest queued column, unless it was needed again since, returns the number
+    // of game objects removed.
+    private int evictNext() {
+        int column = evictionQueue.pollFirst();
+        if (!queuedEvictions.clear(column)) {
+            return 0;
+        }
+        return evictColumn(column);
+    }
+
+    // removing the terrain and the trees of a column, returns the number of game objects removed.
+    private int evictColumn(int column) {
+        long start = System.nanoTime();
+        int objects = terrain.deleteColumn(column);
+        long terrainEnd = System.nanoTime();
+        objects += tree.deleteColumn(column);
+        profile(start, terrainEnd, System.nanoTime());
+        return objects;
+    }
+
+    // adding the time of a column's terrain and of its trees to the profiler, if there is one.
+    private void profile(long start, long terrainEnd, long treeEnd) {
+        if (profiler != null) {
+            profiler.add(FrameProfiler.Section.TERRAIN_STREAMING, terrainEnd - start);
+            profiler.add(FrameProfiler.Section.TREE_STREAMING, treeEnd - terrainEnd);
+        }
+    }
+
+    // requesting the generation of a chunk, unless it is pending (its cancelled columns are then
+    // wanted again, the ones the head already skipped are created right away) or already in the
+    // game.
+    private void request(int chunk) {
+        if (pendingChunkIndices.get(chunk)) {
+            PendingChunk head = pendingChunks.peekFirst();
+            for (int i = 0; i < CHUNK_COLUMNS; i++) {
+                int column = chunk * CHUNK_COLUMNS + i;
+                if (cancelledColumns.clear(column) || head.chunk != chunk || i >= committedColumnsInHead) {
+                    continue;
+                }
+                if (!terrain.isColumnCreated(column)) { // skipped while cancelled
+                    createColumn(column, head.await(), i);
+                }
+            }
+            return;
+        }
+        if (isChunkCreated(chunk)) {
+            return;
+        }
+        Future<PendingChunk.Description> description = workers.submit(() -> describe(chunk));
+        pendingChunks.addLast(new PendingChunk(chunk, description));
+        pendingChunkIndices.set(chunk);
+    }
+
+    // describing the terrain and the trees of a chunk (on a worker), viewing them in the world
+    // cache if they were described before, and storing them there otherwise.
+    private PendingChunk.Description describe(int chunk) {
+        int firstColumn = chunk * CHUNK_COLUMNS;
+        ByteBuffer cached = cache == null ? null : cache.find(chunk);
+        if (cached != null) {
+            TerrainChunk terrainChunk = terrain.viewChunk(firstColumn, CHUNK_COLUMNS, cached);
+            return new PendingChunk.Description(terrainChunk, tree.viewChunk(firstColumn, CHUNK_COLUMNS, cached));
+        }
+        TerrainChunk terrainChunk = terrain.describe(firstColumn, CHUNK_COLUMNS);
+        TreeChunk treeChunk = tree.describe(firstColumn, CHUNK_COLUMNS);
+        ByteBuffer slot = cache == null ? null : cache.allocate(chunk);
+        if (slot != null) {
+            terrainChunk.write(slot);
+            treeChunk.write(slot);
+            cache.publish(chunk);
+        }
+        return new PendingChunk.Description(terrainChunk, treeChunk);
+    }
+
+    // checks if every column of a chunk is in the game.
+    private boolean isChunkCreated(int chunk) {
+        for (int column = chunk * CHUNK_COLUMNS; column < (chunk + 1) * CHUNK_COLUMNS; column++) {
+            if (!terrain.isColumnCreated(column)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // creating up to maxColumns columns of the oldest pending chunk (waiting for the worker if
+    // it's still generating it) and skipping the cancelled ones, returns the number of game
+    // objects added and removed.
+    private int commitHead(int maxColumns) {
+        PendingChunk head = pendingChunks.peekFirst();
+        PendingChunk.Description description = head.await();
+        int last = Math.min(CHUNK_COLUMNS, committedColumnsInHead + maxColumns);
+        int objects = 0;
+        for (int i = committedColumnsInHead; i < last; i++) {
+            int column = head.chunk * CHUNK_COLUMNS + i;
+            if (!cancelledColumns.clear(column)) {
+                objects += createColumn(column, description, i);
+            }
+        }
+        committedColumnsInHead = last;
+        if (committedColumnsInHead == CHUNK_COLUMNS) {
+            pendingChunks.removeFirst();
+            pendingChunkIndices.clear(head.chunk);
+            committedColumnsInHead = 0;
+        }
+        return objects;
+    }
+
+    // creating the terrain and the trees of a column, after evicting the column that keeps its
+    // place if there is one, returns the number of game objects added and removed.
+    private int createColumn(int column, PendingChunk.Description description, int index) {
+        int objects = 0;
+        int slotColumn = terrain.getSlotColumn(column);
+        if (slotColumn != column) { // a column far out of sight keeps the place, evicting it
+            queuedEvictions.clear(slotColumn);
+            objects += evictColumn(slotColumn);
+        }
+        long start = System.nanoTime();
+        objects += terrain.createColumn(description.terrainChunk, index);
+        long terrainEnd = System.nanoTime();
+        objects += tree.createColumn(description.treeChunk, index);
+        profile(start, terrainEnd, System.nanoTime());
+        return objects;
+    }
+
+    // a chunk that was requested and is not fully in the game yet.
+    private static class PendingChunk {
+        private final int chunk;
+        private final Future<Description> description;
+
+        PendingChunk(int chunk, Future<Description> description) {
+            this.chunk = chunk;
+            this.description = description;
+        }
+
+        // the description of the chunk, waiting for the worker if it's still generating it.
+        Description await() {
+            try {
+                return description.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted while generating chunk " + chunk, e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("failed generating chunk " + chunk, e.getCause());
+            }
+        }
+
+        // the terrain and the trees of a chunk, as generated by a worker.
+        private static class Description {
+            private final TerrainChunk terrainChunk;
+            private final TreeChunk treeChunk;
+
+            Description(TerrainChunk terrainChunk, TreeChunk treeChunk) {
+                this.terrainChunk = terrainChunk;
+                this.treeChunk = treeChunk;
+            }
+        }
+    }
+}
@@ -4,11 +4,13 @@ import danogl.GameObject;
 import danogl.collisions.Collision;
 import danogl.collisions.GameObjectCollection;
 import danogl.collisions.Layer;
-import danogl.components.ScheduledTask;
-import danogl.gui.ImageReader;
 import danogl.gui.rendering.AnimationRenderable;
 import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
+import pepse.util.ObjectPool;
+import pepse.util.SpriteCache;
+
+import java.nio.ByteBuffer;
 
 public class FireBall extends GameObject {
     public static final int SIZE = 50;
@@ -19,7 +21,19 @@ public class FireBall extends GameObject {
     public static final int X_LEFT_OFFSET = -130;
     public static final int X_RIGHT_OFFSET = 50;
     public static final float WIDE_FACTOR = 3f;
-    private final GameObjectCollection gameObjects;
+    public static final int POOL_CAPACITY = 128;
+    public static final int LAYER = Layer.DEFAULT + 2;
+    private static final String ANIMATION_KEY = "fireball";
+    private static final Vector2 DIMENSIONS = new Vector2(SIZE * WIDE_FACTOR, SIZE);
+    private static final Vector2 RIGHT_VELOCITY = Vector2.RIGHT.mult(FIRE_BALL_SPEED);
+    private static final Vector2 LEFT_VELOCITY = Vector2.LEFT.mult(FIRE_BALL_SPEED);
+    private static final int FIRE_BALL_STATE_BYTES = 6 * Float.BYTES;
+    private static final ObjectPool<FireBall> pool = new ObjectPool<>(POOL_CAPACITY);
+    private static VisibilityManager visibility;
+    private GameObjectCollection gameObjects;
+    private float age;
+    private boolean isActive;
+    private float sleptTime;
 
     /**
      * Construct a new GameObject instance.
@@ -38,42 +52,197 @@ public class FireBall extends GameObject {
     }
 
     /**
-     * crating a new fireBall the avatar shoots.
+     * crating a new fireBall the avatar shoots, reusing an expired one when possible.
      *
      * @param gameObjects    - The collection of all participating game objects.
-     * @param imageReader    - Used for reading images from disk or from within a jar.
+     * @param sprites        - The sprite cache of the game.
      * @param topLeftCorner  - The location of the top-left corner of the created fireBall.
      * @param fireToTheRight - Indicator if the avatar is facing right.
      */
-    public static void create(GameObjectCollection gameObjects, ImageReader imageReader,
+    public static void create(GameObjectCollection gameObjects, SpriteCache sprites,
                               Vector2 topLeftCorner, boolean fireToTheRight) {
-        AnimationRenderable fireBallAnimation = new AnimationRenderable(new String[]{
+        Vector2 fireBallLocation = topLeftCorner.add(new Vector2(
+                fireToTheRight ? X_RIGHT_OFFSET : X_LEFT_OFFSET, Y_OFFSET));
+        spawn(gameObjects, sprites, fireBallLocation, fireToTheRight ? RIGHT_VELOCITY : LEFT_VELOCITY,
+                0, 0);
+    }
+
+    // adding a fireBall to the game, reusing an expired one when possible.
+    private static void spawn(GameObjectCollection gameObjects, SpriteCache sprites,
+                              Vector2 topLeftCorner, Vector2 velocity, float age, float sleptTime) {
+        FireBall fireBall = pool.poll();
+        if (fireBall == null) {
+            AnimationRenderable fireBallAnimation = sprites.animation(ANIMATION_KEY);
+            fireBall = new FireBall(topLeftCorner, DIMENSIONS, fireBallAnimation, gameObjects);
+        } else {
+            fireBall.gameObjects = gameObjects;
+            fireBall.setTopLeftCorner(topLeftCorner);
+        }
+        fireBall.setVelocity(velocity);
+        fireBall.renderer().setIsFlippedHorizontally(velocity.x() > 0);
+        fireBall.renderer().setOpaqueness(1 - age / LIFE_SPAN);
+        fireBall.age = age;
+        fireBall.sleptTime = sleptTime;
+        fireBall.isActive = true;
+
+        gameObjects.addGameObject(fireBall, LAYER);
+    }
+
+    /**
+     * @param gameObjects - The collection of all participating game objects.
+     * @return The number of bytes writeState writes.
+     */
+    public static int getStateBytes(GameObjectCollection gameObjects) {
+        return Integer.BYTES + countFlying(gameObjects) * FIRE_BALL_STATE_BYTES;
+    }
+
+    /**
+     * Writes what a saved game keeps of the fireBalls: the location, velocity, age and sleeping
+     * time of every flying fireBall, see readState.
+     *
+     * @param buffer      - The buffer of the saved game.
+     * @param gameObjects - The collection of all participating game objects.
+     */
+    public static void writeState(ByteBuffer buffer, GameObjectCollection gameObjects) {
+        buffer.putInt(countFlying(gameObjects));
+        if (gameObjects.isLayerEmpty(LAYER)) {
+            return;
+        }
+        for (GameObject object : gameObjects.objectsInLayer(LAYER)) {
+            FireBall fireBall = (FireBall) object;
+            if (fireBall.isActive) {
+                buffer.putFloat(fireBall.getTopLeftCorner().x());
+                buffer.putFloat(fireBall.getTopLeftCorner().y());
+                buffer.putFloat(fireBall.getVelocity().x());
+                buffer.putFloat(fireBall.getVelocity().y());
+                buffer.putFloat(fireBall.age);
+                buffer.putFloat(fireBall.sleptTime);
+            }
+        }
+    }
+
+    /**
+     * Restores what writeState wrote, the fireBalls are added to the game.
+     *
+     * @param buffer      - The buffer of the saved game, positioned at the fireBalls' state.
+     * @param gameObjects - The collection of all participating game objects.
+     * @param sprites     - The sprite cache of the game.
+     */
+    public static void readState(ByteBuffer buffer, GameObjectCollection gameObjects, SpriteCache sprites) {
+        int fireBalls = buffer.getInt();
+        for (int i = 0; i < fireBalls; i++) {
+            Vector2 topLeftCorner = new Vector2(buffer.getFloat(), buffer.getFloat());
+            Vector2 velocity = new Vector2(buffer.getFloat(), buffer.getFloat());
+            spawn(gameObjects, sprites, topLeftCorner, velocity, buffer.getFloat(), buffer.getFloat());
+        }
+    }
+
+    // the number of fireBalls flying in the game.
+    private static int countFlying(GameObjectCollection gameObjects) {
+        int count = 0;
+        if (!gameObjects.isLayerEmpty(LAYER)) {
+            for (GameObject object : gameObjects.objectsInLayer(LAYER)) {
+                if (((FireBall) object).isActive) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Reads every sprite of the fireBall into the cache.
+     *
+     * @param sprites - The sprite cache of the game.
+     */
+    public static void loadSprites(SpriteCache sprites) {
+        sprites.registerAnimation(ANIMATION_KEY, TIME_BETWEEN_CLIPS,
                 "pepse/assets/fireball-left1.png",
                 "pepse/assets/fireball-left2.png",
                 "pepse/assets/fireball-left3.png",
-                "pepse/assets/fireball-left4.png"},
-                imageReader, true, TIME_BETWEEN_CLIPS);
-        Vector2 fireBallLocation = topLeftCorner.add(new Vector2(
-                fireToTheRight ? X_RIGHT_OFFSET : X_LEFT_OFFSET, Y_OFFSET));
-        FireBall fireBall = new FireBall(fireBallLocation, new Vector2(SIZE * WIDE_FACTOR, SIZE),
-                fireBallAnimation, gameObjects);
-        if (fireToTheRight) {
-            fireBall.setVelocity(Vector2.RIGHT.mult(FIRE_BALL_SPEED));
-            fireBall.renderer().setIsFlippedHorizontally(true);
-        } else
-            fireBall.setVelocity(Vector2.LEFT.mult(FIRE_BALL_SPEED));
-
-        gameObjects.addGameObject(fireBall, Layer.DEFAULT + 2);
-        gameObjects.layers().shouldLayersCollide(Layer.DEFAULT + 1, Layer.DEFAULT + 2, true);
-        fireBall.renderer().fadeOut(LIFE_SPAN);
-        new ScheduledTask(fireBall,
-                LIFE_SPAN,
-                false, () -> gameObjects.removeGameObject(fireBall, Layer.DEFAULT + 2));
+                "pepse/assets/fireball-left4.png");
+    }
+
+    /**
+     * setting up the manager that puts the fireBalls out of sight to sleep.
+     *
+     * @param visibility - The visibility manager of the game, or null to always simulate them.
+     */
+    public static void setVisibility(VisibilityManager visibility) {
+        FireBall.visibility = visibility;
+    }
+
+    /**
+     * @return The pool expired fireBalls are reused from.
+     */
+    public static ObjectPool<FireBall> getPool() {
+        return pool;
+    }
+
+    /**
+     * Should be called once per frame.
+     *
+     * @param deltaTime The time elapsed, in seconds, since the last frame.
+     */
+    @Override
+    public void update(float deltaTime) {
+        if (isAsleep(deltaTime)) {
+            return;
+        }
+        super.update(deltaTime);
+        age += deltaTime;
+        if (age >= LIFE_SPAN) {
+            expire();
+        } else {
+            // fading out through the life span, without a new Transition per fireBall
+            renderer().setOpaqueness(1 - age / LIFE_SPAN);
+        }
+    }
+
+    /**
+     * @param other The other GameObject.
+     * @return false while the fireBall is asleep, its position is then out of date.
+     */
+    @Override
+    public boolean shouldCollideWith(GameObject other) {
+        return sleptTime == 0 && super.shouldCollideWith(other);
+    }
+
+    // checks if the fireBall sleeps through this frame, it flies in a straight line, so where it
+    // would be is known without moving it. Once awake, it's moved to where it would be.
+    private boolean isAsleep(float deltaTime) {
+        if (visibility == null || !isActive) {
+            return false;
+        }
+        float x = getTopLeftCorner().x() + getVelocity().x() * sleptTime;
+        if (visibility.isAwake(x, getTopLeftCorner().y(), getDimensions().x(), getDimensions().y())) {
+            if (sleptTime > 0) {
+                setTopLeftCorner(new Vector2(x, getTopLeftCorner().y()));
+                age += sleptTime;
+                sleptTime = 0;
+            }
+            return false;
+        }
+        sleptTime += deltaTime;
+        if (age + sleptTime >= LIFE_SPAN) {
+            expire();
+        }
+        return true;
+    }
 
+    // removing the fireBall from the game and handing it back to the pool.
+    private void expire() {
+        if (!isActive) {
+            return;
+        }
+        isActive = false;
+        gameObjects.removeGameObject(this, LAYER);
+        pool.release(this);
     }
 
     /**
-     * Called on the first frame of a collision.
+     * Called on the first frame of a collision, the collisions with the carrots are found by a
+     * ProjectileBroadphase.
      *
      * @param other     The GameObject with which a collision occurred.
      * @param collision Information regarding this collision.
@@ -82,8 +251,15 @@ public class FireBall extends GameObject {
     @Override
     public void onCollisionEnter(GameObject other, Collision collision) {
         super.onCollisionEnter(other, collision);
-        gameObjects.removeGameObject(other, Layer.DEFAULT + 1);
-        gameObjects.removeGameObject(this, Layer.DEFAULT + 2);
+        if (!isActive) {
+            return;
+        }
+        if (other instanceof Carrot) {
+            ((Carrot) other).expire();
+        } else {
+            gameObjects.removeGameObject(other, Layer.DEFAULT + 1);
+        }
+        expire();
         Carrot.carrotDestroyed++;
     }
 }
@@ -0,0 +1,59 @@
+package pepse.world;
+
+import java.util.Arrays;
+
+/**
+ * A bounded cache of ground heights, indexed by column (x / Block.SIZE).
+ * The heights are held in a primitive ring buffer, a column is always stored in the slot
+ * (column mod capacity), so looking a height up never allocates and old columns are
+ * simply overwritten by the new ones the avatar reaches.
+ */
+public class HeightMap {
+    private static final int EMPTY_SLOT = Integer.MIN_VALUE;
+    private final float[] heights;
+    private final int[] columns;
+    private final int slotMask;
+
+    /**
+     * constructor.
+     *
+     * @param capacity - The number of columns that can be cached at once, must be a power of 2.
+     */
+    public HeightMap(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of 2: " + capacity);
+        }
+        this.heights = new float[capacity];
+        this.columns = new int[capacity];
+        this.slotMask = capacity - 1;
+        Arrays.fill(columns, EMPTY_SLOT);
+    }
+
+    /**
+     * @param column - A column index.
+     * @return true if the height of the given column is cached.
+     */
+    public boolean contains(int column) {
+        return columns[column & slotMask] == column;
+    }
+
+    /**
+     * @param column - A column index, must be cached (see contains).
+     * @return The cached height of the given column.
+     */
+    public float get(int column) {
+        return heights[column & slotMask];
+    }
+
+    /**
+     * Caches the height of a column, replacing whichever column shared its slot.
+     *
+     * @param column - A column index.
+     * @param height - The ground height of the column.
+     */
+    public void put(int column, float height) {
+        int slot = column & slotMask;
+        columns[slot] = column;
+        heights[slot] = height;
+    }
+}
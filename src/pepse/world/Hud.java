@@ -0,0 +1,166 @@
+package pepse.world;
+
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import danogl.collisions.Layer;
+import danogl.gui.rendering.TextRenderable;
+import danogl.util.Vector2;
+import pepse.util.SafeTextRenderable;
+
+import java.awt.*;
+import java.nio.ByteBuffer;
+
+/**
+ * The texts of the game: the avatar's energy above its head, and the carrots destroyed so far,
+ * the high score and the timer of the round, next to it.
+ * The game updates a single Hud once per frame, after every object moved. Each text keeps the
+ * value it shows, and its string is only rebuilt (and laid out again by danogl) when that value
+ * changed, the numbers are taken from a table of cached strings. The texts are only moved when
+ * the avatar did.
+ */
+public class Hud {
+    public static final String CARROTS_DESTROYED_SO_FAR_TEXT =
+            "Use Ctrl to destroy as many flying carrots\nas you can before the timer ends!" +
+                    "\nSo far destroyed: %d\nHigh score: %d";
+    private static final float ROUND_LENGTH = 60;
+    private static final int ENERGY_TEXT_DIS_ABOVE_AVATAR = 50;
+    private static final int ENERGY_TEXT_SIZE = 20;
+    private static final int CARROT_TEXT_X_OFFSET = 90;
+    private static final int CARROT_TEXT_SIZE = 100;
+    private static final int TIMER_TEXT_X_OFFSET = 60;
+    private static final int TIMER_TEXT_Y_OFFSET = 100;
+    private static final int TIMER_TEXT_SIZE = 40;
+    private static final int CACHED_NUMBERS = 128;
+    private static final int NOTHING_SHOWN = -1;
+    private static final String[] numberStrings = new String[CACHED_NUMBERS];
+    private final Avatar avatar;
+    private final Vector2 windowDimensions;
+    private final GameObject energyText;
+    private final TextRenderable energyTextRenderable;
+    private final GameObject carrotText;
+    private final TextRenderable carrotTextRenderable;
+    private final GameObject timerText;
+    private final TextRenderable timerTextRenderable;
+    private float roundTimeLeft = ROUND_LENGTH;
+    private int shownEnergy = NOTHING_SHOWN;
+    private int shownCarrotsDestroyed = NOTHING_SHOWN;
+    private int shownHighScore = NOTHING_SHOWN;
+    private int shownSeconds = NOTHING_SHOWN;
+    private Vector2 shownAvatarTopLeft;
+
+    /**
+     * constructor.
+     *
+     * @param gameObjects      - The collection of all participating game objects.
+     * @param avatar           - The avatar the texts follow.
+     * @param windowDimensions - The dimensions of the window.
+     */
+    public Hud(GameObjectCollection gameObjects, Avatar avatar, Vector2 windowDimensions) {
+        this.avatar = avatar;
+        this.windowDimensions = windowDimensions;
+        this.energyTextRenderable = new SafeTextRenderable("");
+        energyTextRenderable.setColor(Color.RED);
+        this.energyText = new GameObject(Vector2.ZERO, Vector2.ONES.mult(ENERGY_TEXT_SIZE),
+                energyTextRenderable);
+        gameObjects.addGameObject(energyText, Layer.UI);
+        this.carrotTextRenderable = new SafeTextRenderable("");
+        carrotTextRenderable.setColor(Color.BLUE);
+        this.carrotText = new GameObject(Vector2.ZERO, Vector2.ONES.mult(CARROT_TEXT_SIZE),
+                carrotTextRenderable);
+        gameObjects.addGameObject(carrotText, Layer.UI);
+        this.timerTextRenderable = new SafeTextRenderable("");
+        timerTextRenderable.setColor(Color.RED);
+        this.timerText = new GameObject(Vector2.ZERO, Vector2.ONES.mult(TIMER_TEXT_SIZE),
+                timerTextRenderable);
+        gameObjects.addGameObject(timerText, Layer.UI);
+    }
+
+    /**
+     * Should be called once per frame, after the game objects were updated. Counts the timer of
+     * the round down (ending the round when it runs out, see Carrot.updateHighScore), and brings
+     * the texts up to date.
+     *
+     * @param deltaTime - The time elapsed, in seconds, since the last frame.
+     */
+    public void update(float deltaTime) {
+        roundTimeLeft -= deltaTime;
+        if (roundTimeLeft <= 0) {
+            Carrot.updateHighScore();
+            roundTimeLeft += ROUND_LENGTH;
+        }
+        int energy = (int) avatar.getEnergy();
+        if (energy != shownEnergy) {
+            shownEnergy = energy;
+            energyTextRenderable.setString(numberString(energy));
+        }
+        if (Carrot.carrotDestroyed != shownCarrotsDestroyed || Carrot.highScore != shownHighScore) {
+            shownCarrotsDestroyed = Carrot.carrotDestroyed;
+            shownHighScore = Carrot.highScore;
+            carrotTextRenderable.setString(String.format(CARROTS_DESTROYED_SO_FAR_TEXT,
+                    shownCarrotsDestroyed, shownHighScore));
+        }
+        int seconds = (int) roundTimeLeft;
+        if (seconds != shownSeconds) {
+            shownSeconds = seconds;
+            timerTextRenderable.setString(numberString(seconds));
+        }
+        if (!avatar.getTopLeftCorner().equals(shownAvatarTopLeft)) {
+            followAvatar();
+        }
+    }
+
+    /**
+     * Moves the texts to where the avatar is now, for when it's moved outside of a frame's update
+     * (see PepseGameManager.render).
+     */
+    public void followAvatar() {
+        shownAvatarTopLeft = avatar.getTopLeftCorner();
+        moveTexts();
+    }
+
+    /**
+     * @return The number of bytes writeState writes.
+     */
+    public int getStateBytes() {
+        return Float.BYTES;
+    }
+
+    /**
+     * Writes what a saved game keeps of the Hud: the time left in the round, see readState.
+     *
+     * @param buffer - The buffer of the saved game.
+     */
+    public void writeState(ByteBuffer buffer) {
+        buffer.putFloat(roundTimeLeft);
+    }
+
+    /**
+     * Restores what writeState wrote.
+     *
+     * @param buffer - The buffer of the saved game, positioned at the Hud's state.
+     */
+    public void readState(ByteBuffer buffer) {
+        roundTimeLeft = buffer.getFloat();
+    }
+
+    // moving the texts along with the avatar.
+    private void moveTexts() {
+        energyText.setCenter(avatar.getCenter().add(Vector2.UP.mult(ENERGY_TEXT_DIS_ABOVE_AVATAR)));
+        carrotText.setCenter(shownAvatarTopLeft.add(new Vector2(
+                -(windowDimensions.x() / 2 - CARROT_TEXT_X_OFFSET), -windowDimensions.y() / 2)));
+        timerText.setCenter(shownAvatarTopLeft.add(new Vector2(
+                -(windowDimensions.x() / 2 - TIMER_TEXT_X_OFFSET),
+                -windowDimensions.y() / 2 + TIMER_TEXT_Y_OFFSET)));
+    }
+
+    // the string of a number, cached if it's small enough.
+    private static String numberString(int number) {
+        if (number < 0 || number >= CACHED_NUMBERS) {
+            return String.valueOf(number);
+        }
+        if (numberStrings[number] == null) {
+            numberStrings[number] = String.valueOf(number);
+        }
+        return numberStrings[number];
+    }
+}
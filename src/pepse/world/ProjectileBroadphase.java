@@ -0,0 +1,234 @@
+package pepse.world;
+
+import danogl.GameObject;
+import danogl.collisions.Collision;
+import danogl.collisions.GameObjectCollection;
+import danogl.util.Vector2;
+
+import java.util.Arrays;
+
+/**
+ * Finds the collisions between a layer of targets and a layer of projectiles (carrots and
+ * fireBalls) with a uniform grid, instead of danogl's check of every pair of the two layers.
+ * Every frame the targets are sorted into the cells of the grid they cover (a counting sort
+ * into a fixed number of hashed buckets, reusing the same arrays every frame), then every projectile is
+ * only tested against the targets of its own cells.
+ * Both sides are expected to leave the game on their first contact, so every overlap found is
+ * reported through onCollisionEnter; the two layers should not also collide in danogl.
+ */
+public class ProjectileBroadphase {
+    private static final float CELL_SIZE = 64;
+    private static final int BUCKET_COUNT = 1024;
+    private static final int CELL_Y_MULTIPLIER = 0x9E3779B1;
+    private static final int INITIAL_CAPACITY = 64;
+    private final GameObjectCollection gameObjects;
+    private final int targetLayer;
+    private final int projectileLayer;
+    private final int[] bucketStarts = new int[BUCKET_COUNT + 1];
+    private int[] entryCellsX = new int[INITIAL_CAPACITY];
+    private int[] entryCellsY = new int[INITIAL_CAPACITY];
+    private GameObject[] entryTargets = new GameObject[INITIAL_CAPACITY];
+    private int[] sortedCellsX = new int[INITIAL_CAPACITY];
+    private int[] sortedCellsY = new int[INITIAL_CAPACITY];
+    private GameObject[] sortedTargets = new GameObject[INITIAL_CAPACITY];
+    private int entryCount;
+    private long candidatePairs;
+
+    /**
+     * constructor.
+     *
+     * @param gameObjects     - The collection of all participating game objects.
+     * @param targetLayer     - The layer of the targets (the carrots).
+     * @param projectileLayer - The layer of the projectiles (the fireBalls).
+     */
+    public ProjectileBroadphase(GameObjectCollection gameObjects, int targetLayer, int projectileLayer) {
+        this.gameObjects = gameObjects;
+        this.targetLayer = targetLayer;
+        this.projectileLayer = projectileLayer;
+    }
+
+    /**
+     * Should be called once per frame, after the objects moved. Calls onCollisionEnter of both
+     * objects of every overlapping target and projectile pair.
+     */
+    public void handleCollisions() {
+        if (gameObjects.isLayerEmpty(targetLayer) || gameObjects.isLayerEmpty(projectileLayer)) {
+            return;
+        }
+        sortTargets();
+        for (GameObject projectile : gameObjects.objectsInLayer(projectileLayer)) {
+            Vector2 topLeft = projectile.getTopLeftCorner();
+            Vector2 dimensions = projectile.getDimensions();
+            if (dimensions.x() <= 0 || dimensions.y() <= 0) {
+                continue;
+            }
+            int lastCellX = cellOf(topLeft.x() + dimensions.x());
+            int lastCellY = cellOf(topLeft.y() + dimensions.y());
+            for (int cellX = cellOf(topLeft.x()); cellX <= lastCellX; cellX++) {
+                for (int cellY = cellOf(topLeft.y()); cellY <= lastCellY; cellY++) {
+                    collideInCell(projectile, cellX, cellY);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The number of target and projectile pairs that were tested for an overlap so far.
+     */
+    public long getCandidatePairs() {
+        return candidatePairs;
+    }
+
+    // testing a projectile against the targets of a single cell.
+    private void collideInCell(GameObject projectile, int cellX, int cellY) {
+        int bucket = bucketOf(cellX, cellY);
+        for (int i = bucketStarts[bucket]; i < bucketStarts[bucket + 1]; i++) {
+            if (sortedCellsX[i] != cellX || sortedCellsY[i] != cellY) { // another cell of the bucket
+                continue;
+            }
+            candidatePairs++;
+            GameObject target = sortedTargets[i];
+            // the pair is reported only in the cell holding the top-left corner of their overlap,
+            // as both objects may cover more than a single cell
+            if (overlap(projectile, target) && isOverlapCornerIn(projectile, target, cellX, cellY) &&
+                    projectile.shouldCollideWith(target) && target.shouldCollideWith(projectile)) {
+                projectile.onCollisionEnter(target, new OverlapCollision(projectile, target));
+                target.onCollisionEnter(projectile, new OverlapCollision(target, projectile));
+            }
+        }
+    }
+
+    // sorting an entry per target and cell it covers into the buckets.
+    private void sortTargets() {
+        entryCount = 0;
+        for (GameObject target : gameObjects.objectsInLayer(targetLayer)) {
+            Vector2 topLeft = target.getTopLeftCorner();
+            Vector2 dimensions = target.getDimensions();
+            if (dimensions.x() <= 0 || dimensions.y() <= 0) {
+                continue;
+            }
+            int lastCellX = cellOf(topLeft.x() + dimensions.x());
+            int lastCellY = cellOf(topLeft.y() + dimensions.y());
+            for (int cellX = cellOf(topLeft.x()); cellX <= lastCellX; cellX++) {
+                for (int cellY = cellOf(topLeft.y()); cellY <= lastCellY; cellY++) {
+                    addEntry(target, cellX, cellY);
+                }
+            }
+        }
+        if (sortedTargets.length < entryTargets.length) {
+            sortedCellsX = new int[entryTargets.length];
+            sortedCellsY = new int[entryTargets.length];
+            sortedTargets = new GameObject[entryTargets.length];
+        }
+        Arrays.fill(bucketStarts, 0);
+        for (int i = 0; i < entryCount; i++) {
+            bucketStarts[bucketOf(entryCellsX[i], entryCellsY[i]) + 1]++;
+        }
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) { // from counts to starts
+            bucketStarts[bucket + 1] += bucketStarts[bucket];
+        }
+        // every entry goes to the start of its bucket, which is then moved past it, so in the end
+        // every start holds the start of the next bucket, and is shifted back
+        for (int i = 0; i < entryCount; i++) {
+            int sorted = bucketStarts[bucketOf(entryCellsX[i], entryCellsY[i])]++;
+            sortedCellsX[sorted] = entryCellsX[i];
+            sortedCellsY[sorted] = entryCellsY[i];
+            sortedTargets[sorted] = entryTargets[i];
+        }
+        System.arraycopy(bucketStarts, 0, bucketStarts, 1, BUCKET_COUNT);
+        bucketStarts[0] = 0;
+        Arrays.fill(entryTargets, 0, entryCount, null);
+    }
+
+    // adding an entry of a target in a cell, growing the arrays when needed.
+    private void addEntry(GameObject target, int cellX, int cellY) {
+        if (entryCount == entryTargets.length) {
+            entryCellsX = Arrays.copyOf(entryCellsX, entryCount * 2);
+            entryCellsY = Arrays.copyOf(entryCellsY, entryCount * 2);
+            entryTargets = Arrays.copyOf(entryTargets, entryCount * 2);
+        }
+        entryCellsX[entryCount] = cellX;
+        entryCellsY[entryCount] = cellY;
+        entryTargets[entryCount] = target;
+        entryCount++;
+    }
+
+    // the index of the cell containing a coordinate.
+    private static int cellOf(float coordinate) {
+        return (int) Math.floor(coordinate / CELL_SIZE);
+    }
+
+    // the bucket a cell is sorted into.
+    private static int bucketOf(int cellX, int cellY) {
+        return (cellX + cellY * CELL_Y_MULTIPLIER) & (BUCKET_COUNT - 1);
+    }
+
+    // checks if the bounding boxes of two objects overlap.
+    private static boolean overlap(GameObject first, GameObject second) {
+        Vector2 firstTopLeft = first.getTopLeftCorner();
+        Vector2 secondTopLeft = second.getTopLeftCorner();
+        return firstTopLeft.x() < secondTopLeft.x() + second.getDimensions().x() &&
+                secondTopLeft.x() < firstTopLeft.x() + first.getDimensions().x() &&
+                firstTopLeft.y() < secondTopLeft.y() + second.getDimensions().y() &&
+                secondTopLeft.y() < firstTopLeft.y() + first.getDimensions().y();
+    }
+
+    // checks if the top-left corner of the overlap of two objects lies in a given cell.
+    private static boolean isOverlapCornerIn(GameObject first, GameObject second, int cellX, int cellY) {
+        return cellOf(Math.max(first.getTopLeftCorner().x(), second.getTopLeftCorner().x())) == cellX &&
+                cellOf(Math.max(first.getTopLeftCorner().y(), second.getTopLeftCorner().y())) == cellY;
+    }
+
+    // the overlap of two bounding boxes, as seen from the first object.
+    private static class OverlapCollision implements Collision {
+        private final Vector2 normal;
+        private final Vector2 collisionPoint;
+        private final Vector2 penetrationArea;
+        private final Vector2 relativeVelocity;
+
+        OverlapCollision(GameObject self, GameObject other) {
+            Vector2 topLeft = new Vector2(
+                    Math.max(self.getTopLeftCorner().x(), other.getTopLeftCorner().x()),
+                    Math.max(self.getTopLeftCorner().y(), other.getTopLeftCorner().y()));
+            Vector2 bottomRight = new Vector2(
+                    Math.min(self.getTopLeftCorner().x() + self.getDimensions().x(),
+                            other.getTopLeftCorner().x() + other.getDimensions().x()),
+                    Math.min(self.getTopLeftCorner().y() + self.getDimensions().y(),
+                            other.getTopLeftCorner().y() + other.getDimensions().y()));
+            penetrationArea = bottomRight.subtract(topLeft);
+            collisionPoint = topLeft.add(penetrationArea.mult(0.5f));
+            // pointing from the other object towards this one, along the shallower axis
+            Vector2 away = self.getCenter().subtract(other.getCenter());
+            if (penetrationArea.x() < penetrationArea.y()) {
+                normal = away.x() < 0 ? Vector2.LEFT : Vector2.RIGHT;
+            } else {
+                normal = away.y() < 0 ? Vector2.UP : Vector2.DOWN;
+            }
+            relativeVelocity = self.getVelocity().subtract(other.getVelocity());
+        }
+
+        @Override
+        public Vector2 getNormal() {
+            return normal;
+        }
+
+        @Override
+        public Vector2 getCollisionPoint() {
+            return collisionPoint;
+        }
+
+        @Override
+        public Vector2 getPenetrationArea() {
+            return penetrationArea;
+        }
+
+        @Override
+        public Vector2 getRelativeVelocity() {
+            return relativeVelocity;
+        }
+
+        @Override
+        public void onFrameStart() {
+        }
+    }
+}
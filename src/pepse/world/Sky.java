@@ -4,17 +4,22 @@ import danogl.GameObject;
 import danogl.collisions.GameObjectCollection;
 import danogl.components.CoordinateSpace;
 import danogl.gui.rendering.RectangleRenderable;
+import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
 
 import java.awt.*;
 
 /**
- * Represents the sky.
+ * Represents the sky, tinted towards the colors of dusk around sunrise and sunset.
  */
 public class Sky {
 
     public static final String SKY_TAG = "sky";
     private static final Color BASIC_SKY_COLOR = Color.decode("#80C6E5");
+    private static final Color DUSK_SKY_COLOR = Color.decode("#F2A36B");
+    private static final float MAX_DUSK_TINT = 0.6f;
+    private static final double DUSK_SHARPNESS = 8;
+    public static final int TINTS = 16;
 
     /**
      * This function creates a light blue rectangle which is always at the back of the window.
@@ -34,4 +39,38 @@ public class Sky {
         sky.setTag(SKY_TAG);
         return sky;
     }
+
+    /**
+     * Creates the renderables of the tints of the sky, see tintAt.
+     *
+     * @return TINTS renderables, from the basic color of the sky to the deepest dusk tint.
+     */
+    public static Renderable[] createTints() {
+        Renderable[] tints = new Renderable[TINTS];
+        for (int tint = 0; tint < TINTS; tint++) {
+            float weight = MAX_DUSK_TINT * tint / (TINTS - 1);
+            tints[tint] = new RectangleRenderable(new Color(
+                    blend(BASIC_SKY_COLOR.getRed(), DUSK_SKY_COLOR.getRed(), weight),
+                    blend(BASIC_SKY_COLOR.getGreen(), DUSK_SKY_COLOR.getGreen(), weight),
+                    blend(BASIC_SKY_COLOR.getBlue(), DUSK_SKY_COLOR.getBlue(), weight)));
+        }
+        return tints;
+    }
+
+    /**
+     * The tint of the sky, deepest when the sun crosses the horizon (a quarter and three quarters
+     * into the day) and none for most of the day and the night.
+     *
+     * @param phase - The part of the day that passed, in [0, 1).
+     * @return The index of the tint, in the array of createTints.
+     */
+    public static int tintAt(float phase) {
+        double nearHorizon = 1 - Math.abs(Math.cos(2 * Math.PI * phase));
+        return (int) Math.round(Math.pow(nearHorizon, DUSK_SHARPNESS) * (TINTS - 1));
+    }
+
+    // a channel of a color, part of the way towards another.
+    private static int blend(int from, int to, float weight) {
+        return Math.round(from + (to - from) * weight);
+    }
 }
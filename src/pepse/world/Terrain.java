@@ -2,16 +2,19 @@ package pepse.world;
 
 import danogl.GameObject;
 import danogl.collisions.GameObjectCollection;
-import danogl.gui.rendering.RectangleRenderable;
 import danogl.util.Vector2;
 import pepse.util.ColorSupplier;
-import pepse.util.NoiseGenerator;
+import pepse.util.ColumnBitSet;
+import pepse.util.CoordinateRandom;
+import pepse.util.FractalNoise1D;
 
 import java.awt.*;
-import java.util.HashSet;
+import java.nio.ByteBuffer;
 
 /**
  * Responsible for the creation and management of terrain.
+ * The columns in the game are kept in a ColumnBitSet, and their blocks in a direct-mapped
+ * array indexed by column (like HeightMap), so neither lookup boxes the column index.
  */
 public class Terrain {
     public static final String GROUND_TAG = "ground";
@@ -21,8 +24,17 @@ public class Terrain {
     private final Vector2 windowDimensions;
     private static final Color BASE_GROUND_COLOR = new Color(212, 123, 74);
     private static final int TERRAIN_DEPTH = 20;
-    private static HashSet<Integer> isTerrainForX;
-    private final NoiseGenerator gen;
+    private static final int HEIGHT_MAP_CAPACITY = 1024;
+    private static final int SHADE_SALT = 1;
+    // the blocks of BLOCK_SLOTS columns can be held at once, much more than is ever loaded.
+    private static final int BLOCK_SLOTS = 256;
+    private final ColumnBitSet createdColumns;
+    private final int[] slotColumns;
+    private final GameObject[][] slotBlocks;
+    private final FractalNoise1D gen;
+    private final HeightMap heightMap;
+    private final boolean mergeBuriedBlocks;
+    private final int seed;
 
 
     /**
@@ -34,73 +46,224 @@ public class Terrain {
      * @param seed             - A seed for a random number generator.
      */
     public Terrain(GameObjectCollection gameObjects, int groundLayer, Vector2 windowDimensions, int seed) {
+        this(gameObjects, groundLayer, windowDimensions, seed, false);
+    }
+
+    /**
+     * constructor
+     *
+     * @param gameObjects       - The collection of all participating game objects.
+     * @param groundLayer       - The number of the layer to which the created ground objects should be added.
+     * @param windowDimensions  - The dimensions of the windows.
+     * @param seed              - A seed for a random number generator.
+     * @param mergeBuriedBlocks - If true, the blocks below the surface of every column are created as
+     *                          a single tall object instead of TERRAIN_DEPTH separate blocks.
+     */
+    public Terrain(GameObjectCollection gameObjects, int groundLayer, Vector2 windowDimensions, int seed,
+                   boolean mergeBuriedBlocks) {
+        this.mergeBuriedBlocks = mergeBuriedBlocks;
         this.gameObjects = gameObjects;
         this.groundLayer = groundLayer;
         this.windowDimensions = windowDimensions;
-        isTerrainForX = new HashSet<>();
-        gen = new NoiseGenerator(Math.floor(seed));
+        this.seed = seed;
+        createdColumns = new ColumnBitSet();
+        slotColumns = new int[BLOCK_SLOTS];
+        slotBlocks = new GameObject[BLOCK_SLOTS][];
+        gen = new FractalNoise1D(seed);
+        heightMap = new HeightMap(HEIGHT_MAP_CAPACITY);
     }
 
     /**
      * This method return the ground height at a given location.
+     * The height is the one of the column (of width Block.SIZE) containing the location,
+     * and is read from the height map whenever it is cached.
      *
      * @param x - A number.
      * @return The ground height at the given location.
      */
     public float groundHeightAt(float x) {
-        return windowDimensions.y() * (GROUND_HEIGHT_FACTOR - (float) gen.noise(x / Block.SIZE));
+        int column = (int) Math.floor(x / Block.SIZE);
+        if (!heightMap.contains(column)) {
+            heightMap.put(column, columnHeight(column));
+        }
+        return heightMap.get(column);
+    }
+
+    // calculating the ground height of a column from the noise.
+    private float columnHeight(int column) {
+        return windowDimensions.y() * (GROUND_HEIGHT_FACTOR - (float) gen.noise(column));
     }
 
     /**
      * This method creates terrain in a given range of x-values.
+     * At most BLOCK_SLOTS (256) columns, 256 * Block.SIZE pixels, are held at once: a column takes
+     * the place of the one 256 columns away, so of a wider range only the last 256 columns stay.
      *
      * @param minX - The lower bound of the given range (will be rounded to a multiple of Block.SIZE).
      * @param maxX - The upper bound of the given range (will be rounded to a multiple of Block.SIZE).
      */
     public void createInRange(int minX, int maxX) {
-        for (int i = minX; i < maxX; i++) {
-            if (i % Block.SIZE != 0 || isTerrainForX.contains(i)) {
-                continue;
+        int firstColumn = -Math.floorDiv(-minX, Block.SIZE);
+        int columns = -Math.floorDiv(-maxX, Block.SIZE) - firstColumn;
+        if (columns <= 0) {
+            return;
+        }
+        TerrainChunk chunk = describe(firstColumn, columns);
+        for (int i = 0; i < columns; i++) {
+            createColumn(chunk, i);
+        }
+    }
+
+    /**
+     * Works out the heights and colors of a run of columns without creating anything.
+     * This method only reads the (immutable) noise, so it is safe to call from any thread.
+     *
+     * @param firstColumn - The index (x / Block.SIZE) of the first column.
+     * @param columns     - The number of columns to describe.
+     * @return A description of the terrain of the columns, see createColumn.
+     */
+    public TerrainChunk describe(int firstColumn, int columns) {
+        float[] heights = new float[columns];
+        gen.fill(heights, firstColumn, columns);
+        for (int i = 0; i < columns; i++) {
+            heights[i] = windowDimensions.y() * (GROUND_HEIGHT_FACTOR - heights[i]);
+        }
+        int shadesPerColumn = shadesPerColumn();
+        int[] shades = new int[columns * shadesPerColumn];
+        for (int i = 0; i < columns; i++) {
+            for (int block = 0; block < shadesPerColumn; block++) {
+                shades[i * shadesPerColumn + block] = CoordinateRandom.nextInt(seed, firstColumn + i, block,
+                        SHADE_SALT, ColorSupplier.PALETTE_SIZE);
             }
-            isTerrainForX.add(i);
-            float blockY = groundHeightAt(i);
-            Block block = new Block(new Vector2(i, blockY),
-                    new RectangleRenderable(ColorSupplier.approximateColor(BASE_GROUND_COLOR)));
+        }
+        return new TerrainChunk(firstColumn, heights, shades, shadesPerColumn);
+    }
+
+    /**
+     * @param columns - The number of columns of a chunk.
+     * @return The number of bytes TerrainChunk.write takes for a chunk described by this terrain.
+     */
+    public int getChunkBytes(int columns) {
+        return TerrainChunk.byteSize(columns, shadesPerColumn());
+    }
+
+    /**
+     * Views a chunk described by this terrain (with the same seed and window) right out of the
+     * buffer it was written to, see TerrainChunk.write. Safe to call from any thread.
+     *
+     * @param firstColumn - The index (x / Block.SIZE) of the first column.
+     * @param columns     - The number of columns of the chunk.
+     * @param buffer      - The buffer, positioned at the chunk, it's moved past it.
+     * @return A description of the terrain of the columns, see createColumn.
+     */
+    public TerrainChunk viewChunk(int firstColumn, int columns, ByteBuffer buffer) {
+        return TerrainChunk.view(firstColumn, columns, shadesPerColumn(), buffer);
+    }
+
+    // the number of shades the blocks of a single column are colored by.
+    private int shadesPerColumn() {
+        return mergeBuriedBlocks ? 2 : TERRAIN_DEPTH + 1;
+    }
+
+    /**
+     * Creates the blocks of a single column out of its description, does nothing if the column
+     * already exists. Must be called from the game thread.
+     *
+     * @param chunk - A description of the column, see describe.
+     * @param index - The index of the column within the chunk.
+     * @return The number of game objects added, and removed to make room.
+     */
+    public int createColumn(TerrainChunk chunk, int index) {
+        int column = chunk.getFirstColumn() + index;
+        int x = column * Block.SIZE;
+        if (createdColumns.get(column)) {
+            return 0;
+        }
+        int slot = column & (BLOCK_SLOTS - 1);
+        int objects = 0;
+        if (slotBlocks[slot] != null) { // a column BLOCK_SLOTS columns away, out of sight
+            objects += deleteColumn(slotColumns[slot]);
+        }
+        float blockY = chunk.getHeight(index);
+        heightMap.put(column, blockY);
+        GameObject[] columnBlocks = new GameObject[mergeBuriedBlocks ? 2 : TERRAIN_DEPTH + 1];
+        Block block = new Block(new Vector2(x, blockY),
+                ColorSupplier.approximateRectangle(BASE_GROUND_COLOR, chunk.getShade(index, 0)));
+        block.setTag(GROUND_TAG);
+        gameObjects.addGameObject(block, groundLayer + 1);
+        columnBlocks[0] = block;
+        if (mergeBuriedBlocks) { //adding a single column below surface
+            block = new Block(new Vector2(x, blockY), TERRAIN_DEPTH,
+                    ColorSupplier.approximateStrip(BASE_GROUND_COLOR, TERRAIN_DEPTH,
+                            chunk.getShade(index, 1)));
             block.setTag(GROUND_TAG);
-            gameObjects.addGameObject(block, groundLayer + 1);
+            gameObjects.addGameObject(block, groundLayer);
+            columnBlocks[1] = block;
+        } else {
             for (int j = 0; j < TERRAIN_DEPTH; j++) { //adding blocks below surface
-                block = new Block(new Vector2(i, blockY + j * Block.SIZE),
-                        new RectangleRenderable(ColorSupplier.approximateColor(BASE_GROUND_COLOR)));
+                block = new Block(new Vector2(x, blockY + j * Block.SIZE),
+                        ColorSupplier.approximateRectangle(BASE_GROUND_COLOR, chunk.getShade(index, j + 1)));
                 block.setTag(GROUND_TAG);
-                block.getDimensions().y();
                 gameObjects.addGameObject(block, groundLayer);
+                columnBlocks[j + 1] = block;
             }
         }
+        createdColumns.set(column);
+        slotColumns[slot] = column;
+        slotBlocks[slot] = columnBlocks;
+        return objects + columnBlocks.length;
+    }
+
+    /**
+     * @param column - A column index (x / Block.SIZE).
+     * @return true if the blocks of the column are in the game.
+     */
+    public boolean isColumnCreated(int column) {
+        return createdColumns.get(column);
+    }
+
+    /**
+     * @param column - A column index (x / Block.SIZE).
+     * @return The column whose blocks take the place the column would be kept in, the column
+     * itself if no other column does. That column is deleted when this one is created.
+     */
+    public int getSlotColumn(int column) {
+        int slot = column & (BLOCK_SLOTS - 1);
+        return slotBlocks[slot] != null ? slotColumns[slot] : column;
     }
 
     /**
      * This method deletes terrain in a given range of x-values.
+     * Only the blocks that were created for the columns in the range are removed,
+     * the rest of the ground layers are never scanned.
      *
      * @param minX - The lower bound of the given range (will be rounded to a multiple of Block.SIZE).
      * @param maxX - The upper bound of the given range (will be rounded to a multiple of Block.SIZE).
      */
     public void deleteInRange(int minX, int maxX) {
-        for (int i = minX; i < maxX; i++) {
-            if (i % Block.SIZE != 0 || !isTerrainForX.contains(i)) {
-                continue;
-            }
-            isTerrainForX.remove(i);
+        int lastColumn = Math.floorDiv(maxX - 1, Block.SIZE);
+        for (int column = -Math.floorDiv(-minX, Block.SIZE); column <= lastColumn; column++) {
+            deleteColumn(column);
         }
-        for (GameObject block : gameObjects.objectsInLayer(groundLayer)) {
-            if (block.getTag().equals(GROUND_TAG) &&
-                    block.getTopLeftCorner().x() <= maxX && block.getTopLeftCorner().x() >= minX)
-                gameObjects.removeGameObject(block, groundLayer);
+    }
+
+    /**
+     * Removes the blocks of a single column, does nothing if the column doesn't exist.
+     *
+     * @param column - A column index (x / Block.SIZE).
+     * @return The number of game objects removed.
+     */
+    public int deleteColumn(int column) {
+        if (!createdColumns.clear(column)) {
+            return 0;
         }
-        for (GameObject block : gameObjects.objectsInLayer(groundLayer + 1)) {
-            if (block.getTag().equals(GROUND_TAG) &&
-                    block.getTopLeftCorner().x() <= maxX && block.getTopLeftCorner().x() >= minX)
-                gameObjects.removeGameObject(block, groundLayer + 1);
+        int slot = column & (BLOCK_SLOTS - 1);
+        GameObject[] columnBlocks = slotBlocks[slot];
+        slotBlocks[slot] = null;
+        gameObjects.removeGameObject(columnBlocks[0], groundLayer + 1);
+        for (int j = 1; j < columnBlocks.length; j++) {
+            gameObjects.removeGameObject(columnBlocks[j], groundLayer);
         }
-
+        return columnBlocks.length;
     }
 }
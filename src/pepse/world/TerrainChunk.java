@@ -0,0 +1,114 @@
+package pepse.world;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Everything needed to create the terrain of a run of consecutive columns, worked out ahead of
+ * time (see Terrain.describe), so the game thread is left with constructing the blocks.
+ * A chunk is never changed once described, so it can be handed between threads.
+ * A chunk can be written to a buffer (see write) and later viewed right out of it, the heights
+ * followed by the shades, without copying them (see WorldCache).
+ */
+public class TerrainChunk {
+    private final int firstColumn;
+    private final int columnCount;
+    private final FloatBuffer heights;
+    private final IntBuffer shades;
+    private final int shadesPerColumn;
+
+    /**
+     * constructor.
+     *
+     * @param firstColumn     - The index (x / Block.SIZE) of the first column of the chunk.
+     * @param heights         - The ground height of every column.
+     * @param shades          - The palette shades of the blocks of every column, column by column.
+     * @param shadesPerColumn - The number of shades of a single column.
+     */
+    public TerrainChunk(int firstColumn, float[] heights, int[] shades, int shadesPerColumn) {
+        this(firstColumn, heights.length, FloatBuffer.wrap(heights), IntBuffer.wrap(shades), shadesPerColumn);
+    }
+
+    // a chunk of the given buffers.
+    private TerrainChunk(int firstColumn, int columnCount, FloatBuffer heights, IntBuffer shades,
+                         int shadesPerColumn) {
+        this.firstColumn = firstColumn;
+        this.columnCount = columnCount;
+        this.heights = heights;
+        this.shades = shades;
+        this.shadesPerColumn = shadesPerColumn;
+    }
+
+    /**
+     * @param columns         - The number of columns of a chunk.
+     * @param shadesPerColumn - The number of shades of a single column.
+     * @return The number of bytes write takes for such a chunk.
+     */
+    static int byteSize(int columns, int shadesPerColumn) {
+        return columns * (Float.BYTES + shadesPerColumn * Integer.BYTES);
+    }
+
+    /**
+     * Views a chunk that was written to a buffer, starting at its position, and moves the
+     * buffer past it. The chunk reads the buffer's bytes directly, so they must not change.
+     *
+     * @param firstColumn     - The index (x / Block.SIZE) of the first column of the chunk.
+     * @param columns         - The number of columns of the chunk.
+     * @param shadesPerColumn - The number of shades of a single column.
+     * @param buffer          - The buffer the chunk was written to.
+     * @return The chunk.
+     */
+    static TerrainChunk view(int firstColumn, int columns, int shadesPerColumn, ByteBuffer buffer) {
+        FloatBuffer heights = buffer.asFloatBuffer().limit(columns);
+        buffer.position(buffer.position() + columns * Float.BYTES);
+        IntBuffer shades = buffer.asIntBuffer().limit(columns * shadesPerColumn);
+        buffer.position(buffer.position() + columns * shadesPerColumn * Integer.BYTES);
+        return new TerrainChunk(firstColumn, columns, heights, shades, shadesPerColumn);
+    }
+
+    /**
+     * Writes the chunk to a buffer, starting at its position, so it can be viewed later.
+     *
+     * @param buffer - The buffer, with byteSize bytes remaining at least.
+     */
+    public void write(ByteBuffer buffer) {
+        for (int i = 0; i < columnCount; i++) {
+            buffer.putFloat(heights.get(i));
+        }
+        for (int i = 0; i < columnCount * shadesPerColumn; i++) {
+            buffer.putInt(shades.get(i));
+        }
+    }
+
+    /**
+     * @return The index (x / Block.SIZE) of the first column of the chunk.
+     */
+    public int getFirstColumn() {
+        return firstColumn;
+    }
+
+    /**
+     * @return The number of columns in the chunk.
+     */
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    /**
+     * @param index - The index of a column within the chunk.
+     * @return The ground height of the column.
+     */
+    public float getHeight(int index) {
+        return heights.get(index);
+    }
+
+    /**
+     * @param index - The index of a column within the chunk.
+     * @param block - The index of a block within the column, 0 being the surface.
+     * @return The palette shade of the block.
+     */
+    public int getShade(int index, int block) {
+        return shades.get(index * shadesPerColumn + block);
+    }
+}
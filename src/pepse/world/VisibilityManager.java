@@ -0,0 +1,95 @@
+package pepse.world;
+
+import danogl.GameObject;
+import danogl.util.Vector2;
+
+/**
+ * Decides which of the game's moving objects (leaves, carrots and fireBalls) are simulated.
+ * An object is awake while it overlaps the view of the camera, expanded by a margin on every
+ * side, and asleep otherwise: it skips its update (and its transitions) altogether, and catches
+ * up analytically on the time it slept once it's awake again. The view is read from the
+ * camera's position and dimensions, which are those of the world rectangle on the screen.
+ * The number of awake and asleep objects of the last frame are kept for reporting.
+ */
+public class VisibilityManager {
+    private final GameObject camera;
+    private final float margin;
+    private int activeCount;
+    private int sleepingCount;
+    private int lastActiveCount;
+    private int lastSleepingCount;
+
+    /**
+     * constructor.
+     *
+     * @param camera - The camera of the game (or any object standing for the view).
+     * @param margin - The distance, in pixels, the view is expanded by on every side.
+     */
+    public VisibilityManager(GameObject camera, float margin) {
+        this.camera = camera;
+        this.margin = margin;
+    }
+
+    /**
+     * Checks if an object should be simulated this frame, and counts it as active or sleeping.
+     *
+     * @param x      - The left edge of the object.
+     * @param y      - The top edge of the object.
+     * @param width  - The width of the object.
+     * @param height - The height of the object.
+     * @return true if the object overlaps the expanded view.
+     */
+    public boolean isAwake(float x, float y, float width, float height) {
+        return isAwake(x, y, width, height, 1);
+    }
+
+    /**
+     * Checks if a group of objects should be simulated this frame, and counts them all as active
+     * or sleeping.
+     *
+     * @param x       - The left edge of the group.
+     * @param y       - The top edge of the group.
+     * @param width   - The width of the group.
+     * @param height  - The height of the group.
+     * @param objects - The number of objects in the group.
+     * @return true if the group overlaps the expanded view.
+     */
+    public boolean isAwake(float x, float y, float width, float height, int objects) {
+        Vector2 viewTopLeft = camera.getTopLeftCorner();
+        Vector2 viewDimensions = camera.getDimensions();
+        boolean isAwake = x + width >= viewTopLeft.x() - margin &&
+                x <= viewTopLeft.x() + viewDimensions.x() + margin &&
+                y + height >= viewTopLeft.y() - margin &&
+                y <= viewTopLeft.y() + viewDimensions.y() + margin;
+        if (isAwake) {
+            activeCount += objects;
+        } else {
+            sleepingCount += objects;
+        }
+        return isAwake;
+    }
+
+    /**
+     * Should be called once per frame, after every object was updated.
+     */
+    public void endFrame() {
+        lastActiveCount = activeCount;
+        lastSleepingCount = sleepingCount;
+        activeCount = 0;
+        sleepingCount = 0;
+    }
+
+    /**
+     * @return The number of objects that were simulated in the last frame.
+     */
+    public int getActiveCount() {
+        return lastActiveCount;
+    }
+
+    /**
+     * @return The number of objects that were asleep in the last frame.
+     */
+    public int getSleepingCount() {
+        return lastSleepingCount;
+    }
+}
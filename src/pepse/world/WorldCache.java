@@ -0,0 +1,181 @@
+package pepse.world;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the chunks the world was described by on disk, so a chunk is generated once per world
+ * rather than every time it is streamed in, and later runs with the same seed start from the
+ * chunks earlier runs left.
+ * The chunks are kept in region files of REGION_CHUNKS consecutive chunks, mapped into memory.
+ * A region file starts with a header naming the world it belongs to (the seed, a key of
+ * whatever else the chunks depend on, and the size of a chunk), followed by an index of a byte
+ * per chunk and the chunks themselves, in slots of the same size. Finding a chunk is thus a
+ * single read of the index, and a found chunk is a view of the mapped file rather than a copy.
+ * A file of another world, or of another version of the format, is started over.
+ * If the files cannot be used the cache turns itself off, the world is then generated as usual.
+ * All methods may be called from any thread.
+ */
+public class WorldCache {
+    private static final int MAGIC = 0x50455053; // "PEPS"
+    private static final int FORMAT_VERSION = 1;
+    private static final int REGION_CHUNKS = 256;
+    private static final int HEADER_BYTES = 32;
+    private static final int DATA_OFFSET = HEADER_BYTES + REGION_CHUNKS;
+    private static final byte EMPTY = 0;
+    private static final byte STORED = 1;
+    private static final String FILE_FORMAT = "world-%d-%08x-region%d.chunks";
+    private static final String DISABLED_MESSAGE = "world cache disabled: ";
+    private final Path directory;
+    private final int seed;
+    private final int worldKey;
+    private final int chunkBytes;
+    private final Map<Integer, ByteBuffer> regions = new HashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private volatile boolean isDisabled;
+
+    /**
+     * constructor, no file is touched until a chunk of its region is needed.
+     *
+     * @param directory  - The directory of the region files, created if missing.
+     * @param seed       - The seed of the world.
+     * @param worldKey   - A key of whatever else (besides the seed) the chunks depend on.
+     * @param chunkBytes - The size, in bytes, of a single chunk.
+     */
+    public WorldCache(Path directory, int seed, int worldKey, int chunkBytes) {
+        this.directory = directory;
+        this.seed = seed;
+        this.worldKey = worldKey;
+        this.chunkBytes = chunkBytes;
+    }
+
+    /**
+     * Finds a chunk that was stored before.
+     *
+     * @param chunk - The index of the chunk.
+     * @return A buffer of the chunk's bytes, mapped from its region file, or null if the chunk
+     * was never stored.
+     */
+    public ByteBuffer find(int chunk) {
+        ByteBuffer region = region(Math.floorDiv(chunk, REGION_CHUNKS));
+        int index = Math.floorMod(chunk, REGION_CHUNKS);
+        if (region == null || region.get(HEADER_BYTES + index) != STORED) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return slot(region, index);
+    }
+
+    /**
+     * Starts storing a chunk, it's only found once publish is called.
+     *
+     * @param chunk - The index of the chunk.
+     * @return A buffer of the chunk's slot to write it to, or null if the cache is off.
+     */
+    public ByteBuffer allocate(int chunk) {
+        ByteBuffer region = region(Math.floorDiv(chunk, REGION_CHUNKS));
+        return region == null ? null : slot(region, Math.floorMod(chunk, REGION_CHUNKS));
+    }
+
+    /**
+     * Marks a chunk as stored, after it was written to the buffer allocate returned.
+     *
+     * @param chunk - The index of the chunk.
+     */
+    public void publish(int chunk) {
+        ByteBuffer region = region(Math.floorDiv(chunk, REGION_CHUNKS));
+        if (region != null) {
+            region.put(HEADER_BYTES + Math.floorMod(chunk, REGION_CHUNKS), STORED);
+        }
+    }
+
+    /**
+     * @return The number of chunks that were found.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return The number of chunks that were not found.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    // a buffer of the slot of a chunk in a region.
+    private ByteBuffer slot(ByteBuffer region, int index) {
+        ByteBuffer slot = region.duplicate();
+        slot.position(DATA_OFFSET + index * chunkBytes).limit(DATA_OFFSET + (index + 1) * chunkBytes);
+        return slot.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // the mapped file of a region, opened (or started over) on first use, null if the cache is off.
+    private synchronized ByteBuffer region(int region) {
+        if (isDisabled) {
+            return null;
+        }
+        ByteBuffer buffer = regions.get(region);
+        if (buffer == null) {
+            try {
+                buffer = map(region);
+            } catch (IOException e) {
+                isDisabled = true;
+                System.err.println(DISABLED_MESSAGE + e);
+                return null;
+            }
+            regions.put(region, buffer);
+        }
+        return buffer;
+    }
+
+    // mapping the file of a region into memory, writing a fresh header and index unless the file
+    // already belongs to this world.
+    private ByteBuffer map(int region) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve(String.format(FILE_FORMAT, seed, worldKey, region));
+        long fileBytes = DATA_OFFSET + (long) REGION_CHUNKS * chunkBytes;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            boolean isFresh = channel.size() != fileBytes;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileBytes);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (isFresh || !hasHeader(buffer, region)) {
+                writeHeader(buffer, region);
+            }
+            return buffer;
+        }
+    }
+
+    // checks if a region file was written for this world.
+    private boolean hasHeader(ByteBuffer buffer, int region) {
+        return buffer.getInt(0) == MAGIC && buffer.getInt(4) == FORMAT_VERSION &&
+                buffer.getInt(8) == seed && buffer.getInt(12) == worldKey &&
+                buffer.getInt(16) == chunkBytes && buffer.getInt(20) == region;
+    }
+
+    // starting a region file over, with no chunks stored.
+    private void writeHeader(ByteBuffer buffer, int region) {
+        buffer.putInt(0, 0);
+        for (int i = 0; i < REGION_CHUNKS; i++) {
+            buffer.put(HEADER_BYTES + i, EMPTY);
+        }
+        buffer.putInt(4, FORMAT_VERSION);
+        buffer.putInt(8, seed);
+        buffer.putInt(12, worldKey);
+        buffer.putInt(16, chunkBytes);
+        buffer.putInt(20, region);
+        buffer.putInt(0, MAGIC); // last, so a header cut short is never taken for a valid one
+    }
+}
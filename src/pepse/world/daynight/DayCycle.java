@@ -0,0 +1,106 @@
+package pepse.world.daynight;
+
+import danogl.GameObject;
+import danogl.gui.rendering.Renderable;
+import danogl.util.Vector2;
+import pepse.world.Sky;
+
+/**
+ * The clock of the day, shared by the sun, its halo, the night and the sky.
+ * Every place, opaqueness and tint they take over a day is computed once, into tables of
+ * PHASES_PER_SECOND entries for every second of the cycle, so moving the clock costs a lookup
+ * in each table, and the objects are only touched when the entry changed. The places are kept
+ * as the top-left corners of the sun and the halo, so nothing is allocated either.
+ */
+public class DayCycle {
+    private static final int PHASES_PER_SECOND = 120;
+    private static final int NOTHING_SHOWN = -1;
+    private final float cycleLength;
+    private final int phases;
+    private final GameObject sun;
+    private final GameObject sunHalo;
+    private final GameObject night;
+    private final GameObject sky;
+    private final Vector2[] sunTopLeftCorners;
+    private final Vector2[] sunHaloTopLeftCorners;
+    private final float[] nightOpacities;
+    private final byte[] skyTints;
+    private final Renderable[] skyTintRenderables;
+    private float time;
+    private int shownPhase = NOTHING_SHOWN;
+    private int shownSkyTint = NOTHING_SHOWN;
+
+    /**
+     * constructor, computes the tables and places everything at the start of the day.
+     *
+     * @param cycleLength      - The amount of seconds a full day takes.
+     * @param windowDimensions - The dimensions of the windows.
+     * @param sun              - The sun, see Sun.create.
+     * @param sunHalo          - The halo of the sun, see SunHalo.create.
+     * @param night            - The night, see Night.create.
+     * @param sky              - The sky (see Sky.create), or null to leave it untinted.
+     */
+    public DayCycle(float cycleLength, Vector2 windowDimensions, GameObject sun, GameObject sunHalo,
+                    GameObject night, GameObject sky) {
+        this.cycleLength = cycleLength;
+        this.phases = Math.round(cycleLength * PHASES_PER_SECOND);
+        this.sun = sun;
+        this.sunHalo = sunHalo;
+        this.night = night;
+        this.sky = sky;
+        this.sunTopLeftCorners = new Vector2[phases];
+        this.sunHaloTopLeftCorners = new Vector2[phases];
+        this.nightOpacities = new float[phases];
+        this.skyTints = new byte[phases];
+        this.skyTintRenderables = sky == null ? null : Sky.createTints();
+        Vector2 sunHalfSize = sun.getDimensions().mult(0.5f);
+        Vector2 sunHaloHalfSize = sunHalo.getDimensions().mult(0.5f);
+        for (int i = 0; i < phases; i++) {
+            float phase = (float) i / phases;
+            Vector2 sunCenter = Sun.centerAt(phase, windowDimensions);
+            sunTopLeftCorners[i] = sunCenter.subtract(sunHalfSize);
+            sunHaloTopLeftCorners[i] = sunCenter.subtract(sunHaloHalfSize);
+            nightOpacities[i] = Night.opacityAt(phase);
+            skyTints[i] = (byte) Sky.tintAt(phase);
+        }
+        setTime(0);
+    }
+
+    /**
+     * Should be called once per step of the game, moves the clock forward.
+     *
+     * @param deltaTime - The time elapsed, in seconds, since the last step.
+     */
+    public void update(float deltaTime) {
+        setTime(time + deltaTime);
+    }
+
+    /**
+     * @return The time, in seconds, since the day started.
+     */
+    public float getTime() {
+        return time;
+    }
+
+    /**
+     * Moves the clock to a time of the day, and everything it drives along with it.
+     *
+     * @param time - The time, in seconds, since the day started, wrapped around the length of
+     *             the day.
+     */
+    public void setTime(float time) {
+        this.time = time % cycleLength;
+        int phase = Math.min((int) (this.time * PHASES_PER_SECOND), phases - 1);
+        if (phase == shownPhase) {
+            return;
+        }
+        shownPhase = phase;
+        sun.setTopLeftCorner(sunTopLeftCorners[phase]);
+        sunHalo.setTopLeftCorner(sunHaloTopLeftCorners[phase]);
+        night.renderer().setOpaqueness(nightOpacities[phase]);
+        if (sky != null && skyTints[phase] != shownSkyTint) {
+            shownSkyTint = skyTints[phase];
+            sky.renderer().setRenderable(skyTintRenderables[shownSkyTint]);
+        }
+    }
+}
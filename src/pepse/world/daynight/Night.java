@@ -10,41 +10,42 @@ import danogl.util.Vector2;
 import java.awt.*;
 
 /**
- * Darkens the entire window.
+ * Darkens the entire window, as deep as the DayCycle sets it.
  */
 public class Night {
 
     public static final String NIGHT_TAG = "night";
     private static final Float MIDNIGHT_OPACITY = 0.5f;
+    private static final float HALF_DAY = 0.5f;
 
     /**
-     * This function creates a black rectangular game object that covers the entire game window and changes
-     * its opaqueness in a cyclic manner, in order to resemble day-to-night transitions.
+     * This function creates a black rectangular game object that covers the entire game window, whose
+     * opaqueness changes in a cyclic manner (see opacityAt), in order to resemble day-to-night transitions.
      *
      * @param gameObjects      - The collection of all participating game objects.
      * @param layer            - The number of the layer to which the created game object should be added.
      * @param windowDimensions - The dimensions of the windows.
-     * @param cycleLength      - The amount of seconds it takes the created object to complete a full cycle.
      * @return A new game object representing day-to-night transitions.
      */
-    public static GameObject create(GameObjectCollection gameObjects, int layer, Vector2 windowDimensions,
-                                    float cycleLength) {
+    public static GameObject create(GameObjectCollection gameObjects, int layer, Vector2 windowDimensions) {
         GameObject night = new GameObject(Vector2.ZERO, windowDimensions,
                 new RectangleRenderable(Color.BLACK));
         night.setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
         gameObjects.addGameObject(night, layer);
         night.setTag(NIGHT_TAG);
-
-        new Transition<>(
-                night, // the game object being changed
-                night.renderer()::setOpaqueness, // the method to call
-                0f, // initial transition value
-                MIDNIGHT_OPACITY, // final transition value
-                Transition.CUBIC_INTERPOLATOR_FLOAT, // use a cubic interpolator
-                cycleLength / 2, // transition fully over half a day
-                Transition.TransitionType.TRANSITION_BACK_AND_FORTH,
-                null); // nothing further to execute upon reaching final value
-
+        night.renderer().setOpaqueness(0);
         return night;
     }
+
+    /**
+     * The opaqueness of the night, growing cubically from none at noon to MIDNIGHT_OPACITY at
+     * midnight, and back.
+     *
+     * @param phase - The part of the day that passed, in [0, 1).
+     * @return The opaqueness of the night.
+     */
+    public static float opacityAt(float phase) {
+        float towardsMidnight = phase < HALF_DAY ? phase / HALF_DAY : (1 - phase) / HALF_DAY;
+        return Transition.CUBIC_INTERPOLATOR_FLOAT.interpolate(0f, MIDNIGHT_OPACITY, towardsMidnight);
+    }
 }
@@ -9,7 +9,7 @@ import danogl.util.Vector2;
 import java.awt.*;
 
 /**
- * Represents the halo of the sun.
+ * Represents the halo of the sun, the DayCycle keeps it around the sun.
  */
 public class SunHalo {
     private static final float HALO_SIZE = 300;
@@ -17,7 +17,7 @@ public class SunHalo {
 
     /**
      * This function creates a halo around a given object that represents the sun.
-     * The halo will be tied to the given sun, and will always move with it.
+     * The halo is centered on the given sun, the DayCycle moves it along with it.
      *
      * @param gameObjects - The collection of all participating game objects.
      * @param layer       - The number of the layer to which the created halo should be added.
@@ -32,7 +32,7 @@ public class SunHalo {
         gameObjects.addGameObject(sunHalo, layer);
         sunHalo.setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
         sunHalo.setTag(SUN_HALO_TAG);
-        sunHalo.addComponent(deltaTime -> sunHalo.setCenter(sun.getCenter()));
+        sunHalo.setCenter(sun.getCenter());
         return sunHalo;
     }
 }
@@ -0,0 +1,305 @@
+package pepse.world.trees;
+
+import danogl.util.Vector2;
+import pepse.util.CoordinateRandom;
+import pepse.world.Block;
+import pepse.world.VisibilityManager;
+
+import java.util.function.Function;
+
+/**
+ * Animates every leaf of the trees in a single loop per frame, instead of a set of Transitions
+ * and ScheduledTasks per leaf.
+ * The state of the leaves is kept in primitive arrays indexed by (tree * leavesPerTree + leaf),
+ * the trees being the slots of Tree's cache: the time each leaf has been moving in the wind,
+ * where it is in its cycle of falling, fading out and respawning, and its random draws. Only the
+ * leaves of the trees that are in the game are updated, and the results are pushed to the leaf
+ * objects through tables of precomputed sizes and velocities rather than new vectors.
+ * A falling leaf lands once it reaches the ground height, with no need for danogl to collide the
+ * leaves with the ground.
+ * The leaves of a tree out of sight (see VisibilityManager) are not animated, when the tree is
+ * in sight again they are moved on by the time it slept at once, as their fall is a function of
+ * time alone.
+ */
+public class LeafAnimator {
+    private static final float ANGLE_CHANGE_VALUE = 20f;
+    private static final float ANGLE_CHANGE_TIME = 2f;
+    private static final float SIZE_CHANGE_TIME = 0.5f;
+    private static final int SIZE_CHANGE_FACTOR = 5;
+    private static final int SIZE_STEPS = 20;
+    private static final float FADEOUT_TIME = 10;
+    private static final int FALL_VELOCITY = 60;
+    private static final float SWING_FALL_TIME = 0.5f;
+    private static final int VELOCITY_STEPS = 24;
+    private static final int MAX_TIME_BEFORE_FALLING = 60;
+    private static final int MAX_TIME_BEFORE_RESPAWNING = 10;
+    private static final int RESPAWN_SALT = 6;
+    private static final byte ATTACHED = 0;
+    private static final byte FALLING = 1;
+    private static final byte LANDED = 2;
+    private static final byte FADED = 3;
+    private static final Vector2[] SIZES = new Vector2[SIZE_STEPS + 1];
+    private static final Vector2[] FALL_VELOCITIES = new Vector2[VELOCITY_STEPS + 1];
+
+    static {
+        for (int step = 0; step <= SIZE_STEPS; step++) {
+            SIZES[step] = Vector2.ONES.mult(Block.SIZE - SIZE_CHANGE_FACTOR * (float) step / SIZE_STEPS);
+        }
+        for (int step = 0; step <= VELOCITY_STEPS; step++) {
+            FALL_VELOCITIES[step] = new Vector2(
+                    -FALL_VELOCITY + 2f * FALL_VELOCITY * step / VELOCITY_STEPS, FALL_VELOCITY);
+        }
+    }
+
+    private final int leavesPerTree;
+    private final Function<Float, Float> groundHeightAtFunc;
+    private final boolean[] isTreeAnimated;
+    private final float[] treeLefts;
+    private final float[] treeTops;
+    private final float[] treeWidths;
+    private final float[] treeHeights;
+    private final float[] sleptTimes;
+    private final Leaf[] leaves;
+    private final float[] windTimes;
+    private final byte[] fallStates;
+    private final float[] fallTimers;
+    private final int[] randomSeeds;
+    private final int[] randomDraws;
+    private VisibilityManager visibility;
+
+    /**
+     * constructor.
+     *
+     * @param treeCapacity       - The number of trees that can be animated.
+     * @param leavesPerTree      - The number of leaves of a single tree.
+     * @param groundHeightAtFunc - A function that return the ground height at a given location.
+     */
+    public LeafAnimator(int treeCapacity, int leavesPerTree, Function<Float, Float> groundHeightAtFunc) {
+        this.leavesPerTree = leavesPerTree;
+        this.groundHeightAtFunc = groundHeightAtFunc;
+        this.isTreeAnimated = new boolean[treeCapacity];
+        this.treeLefts = new float[treeCapacity];
+        this.treeTops = new float[treeCapacity];
+        this.treeWidths = new float[treeCapacity];
+        this.treeHeights = new float[treeCapacity];
+        this.sleptTimes = new float[treeCapacity];
+        this.leaves = new Leaf[treeCapacity * leavesPerTree];
+        this.windTimes = new float[leaves.length];
+        this.fallStates = new byte[leaves.length];
+        this.fallTimers = new float[leaves.length];
+        this.randomSeeds = new int[leaves.length];
+        this.randomDraws = new int[leaves.length];
+    }
+
+    /**
+     * Starts animating a new leaf, replacing whichever leaf had its place.
+     *
+     * @param tree       - The index of the leaf's tree.
+     * @param leaf       - The index of the leaf within its tree.
+     * @param leafObject - The leaf.
+     * @param windDelay  - The time, in seconds, before the leaf starts moving in the wind.
+     * @param fallDelay  - The time, in seconds, before the leaf falls for the first time.
+     * @param randomSeed - The seed of the random the leaf respawns by.
+     */
+    public void setLeaf(int tree, int leaf, Leaf leafObject, float windDelay, int fallDelay, int randomSeed) {
+        int i = tree * leavesPerTree + leaf;
+        leaves[i] = leafObject;
+        windTimes[i] = -windDelay;
+        fallStates[i] = ATTACHED;
+        fallTimers[i] = fallDelay;
+        randomSeeds[i] = randomSeed;
+        randomDraws[i] = 0;
+    }
+
+    /**
+     * @param tree       - The index of a tree.
+     * @param isAnimated - true if the leaves of the tree are in the game and should be animated,
+     *                   a tree that isn't animated keeps the state of its leaves.
+     */
+    public void setTreeAnimated(int tree, boolean isAnimated) {
+        isTreeAnimated[tree] = isAnimated;
+    }
+
+    /**
+     * Sets the area a tree's leaves may be in, from the top of its crown to the ground they land
+     * on, the tree is asleep while the area is out of sight.
+     *
+     * @param tree   - The index of a tree.
+     * @param left   - The left edge of the area.
+     * @param top    - The top edge of the area.
+     * @param width  - The width of the area.
+     * @param height - The height of the area.
+     */
+    public void setTreeBounds(int tree, float left, float top, float width, float height) {
+        treeLefts[tree] = left;
+        treeTops[tree] = top;
+        treeWidths[tree] = width;
+        treeHeights[tree] = height;
+        sleptTimes[tree] = 0;
+    }
+
+    /**
+     * setting up the manager that puts the trees out of sight to sleep.
+     *
+     * @param visibility - The visibility manager of the game, or null to always animate them.
+     */
+    public void setVisibility(VisibilityManager visibility) {
+        this.visibility = visibility;
+    }
+
+    /**
+     * Should be called once per frame, before the game objects are updated.
+     *
+     * @param deltaTime - The time elapsed, in seconds, since the last frame.
+     */
+    public void update(float deltaTime) {
+        for (int tree = 0; tree < isTreeAnimated.length; tree++) {
+            if (!isTreeAnimated[tree]) {
+                continue;
+            }
+            int first = tree * leavesPerTree;
+            int last = first + leavesPerTree;
+            if (visibility != null && !visibility.isAwake(treeLefts[tree], treeTops[tree],
+                    treeWidths[tree], treeHeights[tree], leavesPerTree)) {
+                if (sleptTimes[tree] == 0) { // falling asleep, danogl shouldn't move the leaves
+                    for (int i = first; i < last; i++) {
+                        leaves[i].setVelocity(Vector2.ZERO);
+                    }
+                }
+                sleptTimes[tree] += deltaTime;
+                continue;
+            }
+            if (sleptTimes[tree] > 0) {
+                for (int i = first; i < last; i++) {
+                    catchUp(i, sleptTimes[tree]);
+                }
+                sleptTimes[tree] = 0;
+            }
+            for (int i = first; i < last; i++) {
+                windTimes[i] += deltaTime;
+                if (windTimes[i] >= 0) {
+                    blowInWind(i);
+                }
+                fallTimers[i] -= deltaTime;
+                if (fallStates[i] == ATTACHED) {
+                    if (fallTimers[i] <= 0) {
+                        fallStates[i] = FALLING;
+                        fallTimers[i] = FADEOUT_TIME;
+                    }
+                } else if (fallStates[i] == FADED) {
+                    if (fallTimers[i] <= 0) {
+                        respawn(i);
+                    }
+                } else {
+                    fall(i);
+                }
+            }
+        }
+    }
+
+    // swinging and shrinking a leaf back and forth.
+    private void blowInWind(int i) {
+        Leaf leaf = leaves[i];
+        leaf.renderer().setRenderableAngle(
+                backAndForth(windTimes[i], ANGLE_CHANGE_TIME, -ANGLE_CHANGE_VALUE, ANGLE_CHANGE_VALUE));
+        leaf.setDimensions(SIZES[Math.round(backAndForth(windTimes[i], SIZE_CHANGE_TIME, 0, SIZE_STEPS))]);
+    }
+
+    // moving and fading out a falling (or landed) leaf.
+    private void fall(int i) {
+        Leaf leaf = leaves[i];
+        if (fallTimers[i] <= 0) {
+            leaf.renderer().setOpaqueness(0);
+            leaf.setVelocity(Vector2.ZERO);
+            fallStates[i] = FADED;
+            fallTimers[i] = nextRandomInt(i, MAX_TIME_BEFORE_RESPAWNING);
+            return;
+        }
+        leaf.renderer().setOpaqueness(fallTimers[i] / FADEOUT_TIME);
+        if (fallStates[i] == LANDED) {
+            return;
+        }
+        float bottom = leaf.getTopLeftCorner().y() + leaf.getDimensions().y();
+        float left = leaf.getTopLeftCorner().x();
+        float groundHeight = Math.min(groundHeightAtFunc.apply(left),
+                groundHeightAtFunc.apply(left + leaf.getDimensions().x() - 1));
+        if (bottom >= groundHeight) {
+            fallStates[i] = LANDED;
+            leaf.setVelocity(Vector2.ZERO);
+            return;
+        }
+        float fallTime = FADEOUT_TIME - fallTimers[i];
+        leaf.setVelocity(FALL_VELOCITIES[Math.round(
+                backAndForth(fallTime, SWING_FALL_TIME, 0, VELOCITY_STEPS))]);
+    }
+
+    // moving a leaf on by the time its tree slept, through as many falls and respawns as fit in it.
+    private void catchUp(int i, float time) {
+        windTimes[i] += time;
+        while (fallTimers[i] <= time) {
+            time -= Math.max(fallTimers[i], 0);
+            if (fallStates[i] == ATTACHED) {
+                fallStates[i] = FALLING;
+                fallTimers[i] = FADEOUT_TIME;
+            } else if (fallStates[i] == FADED) {
+                respawn(i);
+            } else {
+                fallTimers[i] = 0;
+                fall(i);
+            }
+        }
+        fallTimers[i] -= time;
+        if (fallStates[i] == FALLING) {
+            placeFallingLeaf(i);
+        }
+    }
+
+    // putting a falling leaf where it is after falling for a while from its tree, or on the ground
+    // if it got there.
+    private void placeFallingLeaf(int i) {
+        Leaf leaf = leaves[i];
+        float fallTime = FADEOUT_TIME - fallTimers[i];
+        float x = leaf.getLeafPosition().x() + swingDistance(fallTime);
+        float y = leaf.getLeafPosition().y() + FALL_VELOCITY * fallTime;
+        float groundHeight = Math.min(groundHeightAtFunc.apply(x),
+                groundHeightAtFunc.apply(x + leaf.getDimensions().x() - 1));
+        if (y + leaf.getDimensions().y() >= groundHeight) {
+            y = groundHeight - leaf.getDimensions().y();
+            fallStates[i] = LANDED;
+        }
+        leaf.setTopLeftCorner(new Vector2(x, y));
+    }
+
+    // the sideways distance a falling leaf swung in a given time, its velocity goes back and forth
+    // between -FALL_VELOCITY and FALL_VELOCITY, so every whole swing adds up to nothing.
+    private static float swingDistance(float fallTime) {
+        float phase = fallTime % (2 * SWING_FALL_TIME);
+        // the integral of the back and forth between 0 and 1 over the phase
+        float integral = phase <= SWING_FALL_TIME ?
+                phase * phase / (2 * SWING_FALL_TIME) :
+                SWING_FALL_TIME / 2 + 2 * (phase - SWING_FALL_TIME) -
+                        (phase * phase - SWING_FALL_TIME * SWING_FALL_TIME) / (2 * SWING_FALL_TIME);
+        return -FALL_VELOCITY * phase + 2 * FALL_VELOCITY * integral;
+    }
+
+    // putting a leaf back on its tree, fully opaque, until it falls again.
+    private void respawn(int i) {
+        Leaf leaf = leaves[i];
+        leaf.renderer().setOpaqueness(1f);
+        leaf.setTopLeftCorner(leaf.getLeafPosition());
+        leaf.setVelocity(Vector2.ZERO);
+        fallStates[i] = ATTACHED;
+        fallTimers[i] = nextRandomInt(i, MAX_TIME_BEFORE_FALLING);
+    }
+
+    // the next of a leaf's random numbers in [0, bound), the n-th draw is a hash of (seed, n).
+    private int nextRandomInt(int i, int bound) {
+        return CoordinateRandom.nextInt(randomSeeds[i], randomDraws[i]++, 0, RESPAWN_SALT, bound);
+    }
+
+    // a value going linearly from one end to the other in halfPeriod seconds and back again.
+    private static float backAndForth(float time, float halfPeriod, float from, float to) {
+        float phase = time % (2 * halfPeriod) / halfPeriod;
+        return from + (to - from) * (phase <= 1 ? phase : 2 - phase);
+    }
+}
@@ -1,12 +1,10 @@
 package pepse.world.trees;
 
 import danogl.collisions.GameObjectCollection;
-import danogl.components.ScheduledTask;
 import danogl.util.Vector2;
+import pepse.util.CoordinateRandom;
 import pepse.world.Block;
 
-import java.util.Objects;
-import java.util.Random;
 import java.util.function.Function;
 
 /**
@@ -15,14 +13,19 @@ import java.util.function.Function;
 public class Leaves {
 
     private static final int MAX_TIME_BEFORE_FALLING = 60;
-    private static final int PRIME_NUM = 31;
+    private static final int ANIMATION_SALT = 3;
+    private static final int FALL_SALT = 4;
+    private static final int LEAF_SEED_SALT = 5;
     private static final int LEAF_RADIUS = 5;
+    static final int LEAVES_PER_TREE = LEAF_RADIUS * LEAF_RADIUS;
     private final GameObjectCollection gameObject;
     private final Function<Float, Float> groundHeightAtFunc;
     private final int leavesLayer;
     private final int treeHeight;
     private final int treeX;
-    private final int mainSeed;
+    private final Leaf[] leaves;
+    private final LeafAnimator animator;
+    private final int animatorTree;
 
     /**
      * constructor.
@@ -32,38 +35,84 @@ public class Leaves {
      * @param groundHeightAtFunc - A function that return the ground height at a given location.
      * @param leavesLayer        - The number of the layer to which the created leaf objects should be added.
      * @param treeHeight         - The height of the tree.
-     * @param mainSeed           - The main seed of the game.
+     * @param chunk              - The description of the tree's leaves, see describe.
+     * @param chunkIndex         - The index of the tree's column within the chunk.
+     * @param animator           - The animator of the leaves of every tree.
+     * @param animatorTree       - The index of the tree in the animator.
      */
     public Leaves(int treeX, GameObjectCollection gameObject, Function<Float, Float> groundHeightAtFunc,
-                  int leavesLayer, int treeHeight, int mainSeed) {
+                  int leavesLayer, int treeHeight, TreeChunk chunk, int chunkIndex,
+                  LeafAnimator animator, int animatorTree) {
         this.gameObject = gameObject;
         this.groundHeightAtFunc = groundHeightAtFunc;
         this.leavesLayer = leavesLayer;
         this.treeHeight = treeHeight;
         this.treeX = treeX;
-        this.mainSeed = mainSeed;
-        create();
+        this.leaves = new Leaf[LEAVES_PER_TREE];
+        this.animator = animator;
+        this.animatorTree = animatorTree;
+        create(chunk, chunkIndex);
+        // from the top of the crown down to the ground the leaves land on, a few blocks below the
+        // ground at the trunk on a slope
+        float groundHeight = groundHeightAtFunc.apply((float) treeX);
+        float top = groundHeight - Block.SIZE * (treeHeight + LEAF_RADIUS - 1);
+        animator.setTreeBounds(animatorTree, treeX - Block.SIZE * 2, top, Block.SIZE * LEAF_RADIUS,
+                groundHeight + Block.SIZE * LEAF_RADIUS - top);
+        animator.setTreeAnimated(animatorTree, true);
     }
 
-    // creates the actual leaf blocks, also setting up a scheduled task for the animation and falling actions.
-    private void create() {
+    /**
+     * Works out the timing and seed of every leaf of a tree out of the tree's column and the
+     * seed alone, safe to call from any thread.
+     *
+     * @param chunk      - The chunk to write the leaves to.
+     * @param chunkIndex - The index of the tree's column within the chunk.
+     * @param column     - The column index (x / Block.SIZE) of the tree.
+     * @param mainSeed   - The main seed of the game.
+     */
+    static void describe(TreeChunk chunk, int chunkIndex, int column, int mainSeed) {
+        for (int leaf = 0; leaf < LEAVES_PER_TREE; leaf++) {
+            chunk.setLeaf(chunkIndex, leaf,
+                    CoordinateRandom.nextFloat(mainSeed, column, leaf, ANIMATION_SALT),
+                    CoordinateRandom.nextInt(mainSeed, column, leaf, FALL_SALT, MAX_TIME_BEFORE_FALLING),
+                    (int) CoordinateRandom.hash(mainSeed, column, leaf, LEAF_SEED_SALT));
+        }
+    }
+
+    // creates the actual leaf blocks, handing each to the animator with the timing of its wind and fall.
+    private void create(TreeChunk chunk, int chunkIndex) {
         for (int j = 0; j < LEAF_RADIUS; j++) {
             for (int k = 1; k <= LEAF_RADIUS; k++) {
+                int leafIndex = j * LEAF_RADIUS + k - 1;
                 Vector2 leafPotion = new Vector2(treeX - Block.SIZE * 2 + Block.SIZE * j,
                         groundHeightAtFunc.apply((float) treeX) - Block.SIZE * (treeHeight + k - 1));
                 Leaf leaf = new Leaf(leafPotion, gameObject, leavesLayer);
-                leaf.setRandomizer(mainSeed);
+                leaves[leafIndex] = leaf;
+                animator.setLeaf(animatorTree, leafIndex, leaf,
+                        chunk.getLeafAnimationDelay(chunkIndex, leafIndex),
+                        chunk.getLeafFallDelay(chunkIndex, leafIndex),
+                        chunk.getLeafSeed(chunkIndex, leafIndex));
+            }
+        }
+    }
 
-                new ScheduledTask(leaf,
-                        new Random(Objects.hash(leafPotion.x() * PRIME_NUM + leafPotion.y(),
-                                mainSeed)).nextFloat(),
-                        false, leaf::animate);
+    /**
+     * Adds the leaves back to the game, after they were removed by removeFromGame.
+     */
+    public void addToGame() {
+        for (Leaf leaf : leaves) {
+            gameObject.addGameObject(leaf, leavesLayer);
+        }
+        animator.setTreeAnimated(animatorTree, true);
+    }
 
-                new ScheduledTask(leaf,
-                        new Random(Objects.hash(leafPotion.x() * PRIME_NUM + leafPotion.y(),
-                                mainSeed)).nextInt(MAX_TIME_BEFORE_FALLING),
-                        false, leaf::fall);
-            }
+    /**
+     * Removes the leaves from the game, the leaves are kept (with their animations) so they can be revived.
+     */
+    public void removeFromGame() {
+        for (Leaf leaf : leaves) {
+            gameObject.removeGameObject(leaf, leavesLayer);
         }
+        animator.setTreeAnimated(animatorTree, false);
     }
 }
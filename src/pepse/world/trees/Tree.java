@@ -1,28 +1,39 @@
 package pepse.world.trees;
 
-import danogl.GameObject;
 import danogl.collisions.GameObjectCollection;
+import pepse.util.CoordinateRandom;
 import pepse.world.Block;
+import pepse.world.VisibilityManager;
 
-import java.util.HashMap;
-import java.util.Objects;
-import java.util.Random;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.function.Function;
 
 /**
  * Responsible for the creation and management of trees.
+ * Whether a column grows a tree is a pure function of the seed and the column, so the forest is
+ * the same whichever way the world is explored. Trees are kept in a bounded, direct-mapped
+ * cache indexed by column (like HeightMap), so a tree that was removed from the game is revived
+ * as it was when the avatar comes back, until another tree needs its slot.
  */
 public class Tree {
 
     private static final int TREE_HEIGHT = 6;
-    private static final double TREE_PLACEMENT_LIMIT = 0.9;
+    private static final float TREE_PLACEMENT_LIMIT = 0.9f;
     public static final int MAX_HEIGHT_BOUND = 4;
+    private static final int HEIGHT_SALT = 2;
+    private static final int PLACEMENT_SALT = 7;
+    // the cache spans CACHE_SLOTS columns, much wider than the part of the world that is loaded.
+    private static final int CACHE_SLOTS = 256;
+    private static final int EMPTY_SLOT = Integer.MIN_VALUE;
     private final GameObjectCollection gameObject;
     private final int treeLayer;
     private final Function<Float, Float> groundHeightAtFunc;
-    private static HashMap<Integer, Boolean> isTreePossibleInX;
-    private static HashMap<Integer, Boolean> isThereTreeInX;
-    private Random mainRandom;
+    private final int[] slotColumns;
+    private final Trunk[] slotTrunks;
+    private final Leaves[] slotLeaves;
+    private final boolean[] isSlotInGame;
+    private final LeafAnimator leafAnimator;
     private int mainSeed;
 
     /**
@@ -36,71 +47,178 @@ public class Tree {
         this.gameObject = gameObject;
         this.treeLayer = treeLayer;
         this.groundHeightAtFunc = groundHeightAtFunc;
-        isTreePossibleInX = new HashMap<>();
-        isThereTreeInX = new HashMap<>();
+        this.slotColumns = new int[CACHE_SLOTS];
+        this.slotTrunks = new Trunk[CACHE_SLOTS];
+        this.slotLeaves = new Leaves[CACHE_SLOTS];
+        this.isSlotInGame = new boolean[CACHE_SLOTS];
+        this.leafAnimator = new LeafAnimator(CACHE_SLOTS, Leaves.LEAVES_PER_TREE, groundHeightAtFunc);
+        Arrays.fill(slotColumns, EMPTY_SLOT);
+    }
 
+    /**
+     * @param column   - A column index (x / Block.SIZE).
+     * @param mainSeed - The main seed of the game.
+     * @return true if a tree grows in the column.
+     */
+    public static boolean isTreeInColumn(int column, int mainSeed) {
+        return CoordinateRandom.nextFloat(mainSeed, column, 0, PLACEMENT_SALT) > TREE_PLACEMENT_LIMIT;
     }
 
     /**
      * This method creates trees in a given range of x-values.
+     * At most CACHE_SLOTS (256) columns, 256 * Block.SIZE pixels, are held at once: a tree takes
+     * the place of the one 256 columns away, so of a wider range only the last 256 columns stay.
      *
      * @param minX - The lower bound of the given range (will be rounded to a multiple of Block.SIZE).
      * @param maxX - The upper bound of the given range (will be rounded to a multiple of Block.SIZE).
      */
     public void createInRange(int minX, int maxX) {
-        for (int i = minX; i < maxX; i++) {
-            int heightChange = new Random(Objects.hash(i, mainSeed)).nextInt(MAX_HEIGHT_BOUND) - 2;
-            if (i % Block.SIZE != 0) {
-                continue;
-            }
-            if (!isTreePossibleInX.containsKey(i))
-                isTreePossibleInX.put(i, mainRandom.nextDouble() > TREE_PLACEMENT_LIMIT);
-
-            if (isTreePossibleInX.get(i) && (isThereTreeInX.get(i) == null || !isThereTreeInX.get(i))) {
-                isThereTreeInX.put(i, true);
-                new Trunk(i, gameObject, groundHeightAtFunc, treeLayer + 1,
-                        TREE_HEIGHT + heightChange);
-                new Leaves(i, gameObject, groundHeightAtFunc, treeLayer + 2,
-                        TREE_HEIGHT + heightChange, mainSeed);
+        int firstColumn = -Math.floorDiv(-minX, Block.SIZE);
+        int columns = -Math.floorDiv(-maxX, Block.SIZE) - firstColumn;
+        if (columns <= 0) {
+            return;
+        }
+        TreeChunk chunk = describe(firstColumn, columns);
+        for (int i = 0; i < columns; i++) {
+            createColumn(chunk, i);
+        }
+    }
+
+    /**
+     * Works out the trees that may grow in a run of columns without creating anything.
+     * This method only depends on the seed, so it is safe to call from any thread.
+     *
+     * @param firstColumn - The index (x / Block.SIZE) of the first column.
+     * @param columns     - The number of columns to describe.
+     * @return A description of the trees of the columns, see createColumn.
+     */
+    public TreeChunk describe(int firstColumn, int columns) {
+        int[] heightChanges = new int[columns];
+        boolean[] hasTree = new boolean[columns];
+        for (int i = 0; i < columns; i++) {
+            hasTree[i] = isTreeInColumn(firstColumn + i, mainSeed);
+            heightChanges[i] = CoordinateRandom.nextInt(mainSeed, firstColumn + i, 0, HEIGHT_SALT,
+                    MAX_HEIGHT_BOUND) - 2;
+        }
+        TreeChunk chunk = new TreeChunk(firstColumn, heightChanges, hasTree, Leaves.LEAVES_PER_TREE);
+        for (int i = 0; i < columns; i++) {
+            if (hasTree[i]) {
+                Leaves.describe(chunk, i, firstColumn + i, mainSeed);
             }
         }
+        return chunk;
+    }
+
+    /**
+     * @param columns - The number of columns of a chunk.
+     * @return The number of bytes TreeChunk.write takes for a chunk described by these trees.
+     */
+    public int getChunkBytes(int columns) {
+        return TreeChunk.byteSize(columns, Leaves.LEAVES_PER_TREE);
     }
 
+    /**
+     * Views a chunk described by these trees (with the same seed) right out of the buffer it
+     * was written to, see TreeChunk.write. Safe to call from any thread.
+     *
+     * @param firstColumn - The index (x / Block.SIZE) of the first column.
+     * @param columns     - The number of columns of the chunk.
+     * @param buffer      - The buffer, positioned at the chunk, it's moved past it.
+     * @return A description of the trees of the columns, see createColumn.
+     */
+    public TreeChunk viewChunk(int firstColumn, int columns, ByteBuffer buffer) {
+        return TreeChunk.view(firstColumn, columns, Leaves.LEAVES_PER_TREE, buffer);
+    }
+
+    /**
+     * Creates (or revives) the tree of a single column out of its description, if a tree grows
+     * there. Must be called from the game thread.
+     *
+     * @param chunk - A description of the column, see describe.
+     * @param index - The index of the column within the chunk.
+     * @return The number of game objects added, and removed to make room.
+     */
+    public int createColumn(TreeChunk chunk, int index) {
+        int column = chunk.getFirstColumn() + index;
+        int slot = column & (CACHE_SLOTS - 1);
+        if (!chunk.hasTree(index) || (slotColumns[slot] == column && isSlotInGame[slot])) {
+            return 0;
+        }
+        if (slotColumns[slot] == column) { // reviving a tree that was already created
+            slotTrunks[slot].addToGame();
+            slotLeaves[slot].addToGame();
+            isSlotInGame[slot] = true;
+            return slotTrunks[slot].getBlockCount() + Leaves.LEAVES_PER_TREE;
+        }
+        int objects = 0;
+        if (slotColumns[slot] != EMPTY_SLOT) { // a tree CACHE_SLOTS columns away, out of sight
+            objects += deleteColumn(slotColumns[slot]);
+        }
+        int x = column * Block.SIZE;
+        int treeHeight = TREE_HEIGHT + chunk.getHeightChange(index);
+        slotColumns[slot] = column;
+        slotTrunks[slot] = new Trunk(x, gameObject, groundHeightAtFunc, treeLayer + 1, treeHeight);
+        slotLeaves[slot] = new Leaves(x, gameObject, groundHeightAtFunc, treeLayer + 2, treeHeight,
+                chunk, index, leafAnimator, slot);
+        isSlotInGame[slot] = true;
+        return objects + treeHeight + Leaves.LEAVES_PER_TREE;
+    }
 
     /**
      * This method deletes trees in a given range of x-values.
+     * The trunk and leaves of every deleted tree are kept, so the tree is revived as it was.
      *
      * @param minX - The lower bound of the given range (will be rounded to a multiple of Block.SIZE).
      * @param maxX - The upper bound of the given range (will be rounded to a multiple of Block.SIZE).
      */
     public void deleteInRange(int minX, int maxX) {
-        for (int i = minX; i < maxX; i++) {
-            if (i % Block.SIZE != 0 || !isThereTreeInX.containsKey(i)) {
-                continue;
-            }
-            isThereTreeInX.put(i, false);
-        }
-        for (GameObject block : gameObject.objectsInLayer(treeLayer + 1)) {
-            if (block.getTag().equals(Trunk.TRUNK_TAG) &&
-                    block.getTopLeftCorner().x() <= maxX && block.getTopLeftCorner().x() >= minX)
-                gameObject.removeGameObject(block, treeLayer + 1);
+        int lastColumn = Math.floorDiv(maxX - 1, Block.SIZE);
+        for (int column = -Math.floorDiv(-minX, Block.SIZE); column <= lastColumn; column++) {
+            deleteColumn(column);
         }
-        for (GameObject block : gameObject.objectsInLayer(treeLayer + 2)) {
-            if (block.getTag().equals(Leaf.LEAF_TAG) &&
-                    block.getTopLeftCorner().x() <= maxX && block.getTopLeftCorner().x() >= minX)
-                gameObject.removeGameObject(block, treeLayer + 2);
+    }
+
+    /**
+     * Removes the tree of a single column from the game, if there is one.
+     *
+     * @param column - A column index (x / Block.SIZE).
+     * @return The number of game objects removed.
+     */
+    public int deleteColumn(int column) {
+        int slot = column & (CACHE_SLOTS - 1);
+        if (slotColumns[slot] != column || !isSlotInGame[slot]) {
+            return 0;
         }
+        isSlotInGame[slot] = false;
+        slotTrunks[slot].removeFromGame();
+        slotLeaves[slot].removeFromGame();
+        return slotTrunks[slot].getBlockCount() + Leaves.LEAVES_PER_TREE;
     }
 
+    /**
+     * setting up the manager that puts the trees out of sight to sleep.
+     *
+     * @param visibility - The visibility manager of the game, or null to always animate them.
+     */
+    public void setVisibility(VisibilityManager visibility) {
+        leafAnimator.setVisibility(visibility);
+    }
+
+    /**
+     * Animates the leaves of every tree in the game, should be called once per frame.
+     *
+     * @param deltaTime - The time elapsed, in seconds, since the last frame.
+     */
+    public void update(float deltaTime) {
+        leafAnimator.update(deltaTime);
+    }
 
     /**
-     * set up the random object and the seed of the whole game, in order to maintain reconstructed randomly.
+     * set up the seed of the whole game, every tree is placed and shaped by it.
      *
-     * @param mainRandom - The main Random object of the whole game.
-     * @param mainSeed   - The main seed of the whole game.
+     * @param mainSeed - The main seed of the whole game.
      */
-    public void setRandomaizer(Random mainRandom, int mainSeed) {
-        this.mainRandom = mainRandom;
+    public void setSeed(int mainSeed) {
         this.mainSeed = mainSeed;
     }
 }
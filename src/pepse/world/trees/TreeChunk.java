@@ -0,0 +1,190 @@
+package pepse.world.trees;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Everything needed to create the trees of a run of consecutive columns, worked out ahead of
+ * time (see Tree.describe): which columns grow a tree, its height and the timing and seed of
+ * each of its leaves. A chunk is never changed once described, so it can be handed
+ * between threads.
+ * A chunk can be written to a buffer (see write) and later viewed right out of it, an array
+ * after the other, without copying them (see WorldCache).
+ */
+public class TreeChunk {
+    private static final int NO_TREE = 0;
+    private static final int TREE = 1;
+    private final int firstColumn;
+    private final int columnCount;
+    private final IntBuffer heightChanges;
+    private final IntBuffer hasTree;
+    private final int leavesPerTree;
+    private final FloatBuffer leafAnimationDelays;
+    private final IntBuffer leafFallDelays;
+    private final IntBuffer leafSeeds;
+
+    /**
+     * constructor, the leaf arrays are filled through setLeaf.
+     *
+     * @param firstColumn   - The index (x / Block.SIZE) of the first column of the chunk.
+     * @param heightChanges - The change to the default height of a tree in every column.
+     * @param hasTree       - Whether a tree grows in every column.
+     * @param leavesPerTree - The number of leaves of a single tree.
+     */
+    TreeChunk(int firstColumn, int[] heightChanges, boolean[] hasTree, int leavesPerTree) {
+        this(firstColumn, heightChanges.length, IntBuffer.wrap(heightChanges),
+                IntBuffer.wrap(treeFlags(hasTree)), leavesPerTree,
+                FloatBuffer.allocate(heightChanges.length * leavesPerTree),
+                IntBuffer.allocate(heightChanges.length * leavesPerTree),
+                IntBuffer.allocate(heightChanges.length * leavesPerTree));
+    }
+
+    // a chunk of the given buffers.
+    private TreeChunk(int firstColumn, int columnCount, IntBuffer heightChanges, IntBuffer hasTree,
+                      int leavesPerTree, FloatBuffer leafAnimationDelays, IntBuffer leafFallDelays,
+                      IntBuffer leafSeeds) {
+        this.firstColumn = firstColumn;
+        this.columnCount = columnCount;
+        this.heightChanges = heightChanges;
+        this.hasTree = hasTree;
+        this.leavesPerTree = leavesPerTree;
+        this.leafAnimationDelays = leafAnimationDelays;
+        this.leafFallDelays = leafFallDelays;
+        this.leafSeeds = leafSeeds;
+    }
+
+    // whether a tree grows in every column, as TREE or NO_TREE.
+    private static int[] treeFlags(boolean[] hasTree) {
+        int[] flags = new int[hasTree.length];
+        for (int i = 0; i < hasTree.length; i++) {
+            flags[i] = hasTree[i] ? TREE : NO_TREE;
+        }
+        return flags;
+    }
+
+    /**
+     * @param columns       - The number of columns of a chunk.
+     * @param leavesPerTree - The number of leaves of a single tree.
+     * @return The number of bytes write takes for such a chunk.
+     */
+    static int byteSize(int columns, int leavesPerTree) {
+        return columns * (2 * Integer.BYTES + leavesPerTree * (Float.BYTES + 2 * Integer.BYTES));
+    }
+
+    /**
+     * Views a chunk that was written to a buffer, starting at its position, and moves the
+     * buffer past it. The chunk reads the buffer's bytes directly, so they must not change.
+     *
+     * @param firstColumn   - The index (x / Block.SIZE) of the first column of the chunk.
+     * @param columns       - The number of columns of the chunk.
+     * @param leavesPerTree - The number of leaves of a single tree.
+     * @param buffer        - The buffer the chunk was written to.
+     * @return The chunk.
+     */
+    static TreeChunk view(int firstColumn, int columns, int leavesPerTree, ByteBuffer buffer) {
+        IntBuffer heightChanges = nextInts(buffer, columns);
+        IntBuffer hasTree = nextInts(buffer, columns);
+        FloatBuffer leafAnimationDelays = buffer.asFloatBuffer().limit(columns * leavesPerTree);
+        buffer.position(buffer.position() + columns * leavesPerTree * Float.BYTES);
+        IntBuffer leafFallDelays = nextInts(buffer, columns * leavesPerTree);
+        IntBuffer leafSeeds = nextInts(buffer, columns * leavesPerTree);
+        return new TreeChunk(firstColumn, columns, heightChanges, hasTree, leavesPerTree,
+                leafAnimationDelays, leafFallDelays, leafSeeds);
+    }
+
+    // the next ints of a buffer as a view, moving the buffer past them.
+    private static IntBuffer nextInts(ByteBuffer buffer, int count) {
+        IntBuffer ints = buffer.asIntBuffer().limit(count);
+        buffer.position(buffer.position() + count * Integer.BYTES);
+        return ints;
+    }
+
+    /**
+     * Writes the chunk to a buffer, starting at its position, so it can be viewed later.
+     *
+     * @param buffer - The buffer, with byteSize bytes remaining at least.
+     */
+    public void write(ByteBuffer buffer) {
+        for (int i = 0; i < columnCount; i++) {
+            buffer.putInt(heightChanges.get(i));
+        }
+        for (int i = 0; i < columnCount; i++) {
+            buffer.putInt(hasTree.get(i));
+        }
+        for (int i = 0; i < columnCount * leavesPerTree; i++) {
+            buffer.putFloat(leafAnimationDelays.get(i));
+        }
+        for (int i = 0; i < columnCount * leavesPerTree; i++) {
+            buffer.putInt(leafFallDelays.get(i));
+        }
+        for (int i = 0; i < columnCount * leavesPerTree; i++) {
+            buffer.putInt(leafSeeds.get(i));
+        }
+    }
+
+    /**
+     * @return The index (x / Block.SIZE) of the first column of the chunk.
+     */
+    public int getFirstColumn() {
+        return firstColumn;
+    }
+
+    /**
+     * @return The number of columns in the chunk.
+     */
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    /**
+     * @param index - The index of a column within the chunk.
+     * @return true if a tree grows in the column.
+     */
+    public boolean hasTree(int index) {
+        return hasTree.get(index) == TREE;
+    }
+
+    /**
+     * @param index - The index of a column within the chunk.
+     * @return The change to the default height of a tree in the column.
+     */
+    public int getHeightChange(int index) {
+        return heightChanges.get(index);
+    }
+
+    // sets the timing and seed of a single leaf of the tree in a column.
+    void setLeaf(int index, int leaf, float animationDelay, int fallDelay, int seed) {
+        int i = index * leavesPerTree + leaf;
+        leafAnimationDelays.put(i, animationDelay);
+        leafFallDelays.put(i, fallDelay);
+        leafSeeds.put(i, seed);
+    }
+
+    /**
+     * @param index - The index of a column within the chunk.
+     * @param leaf  - The index of a leaf of the tree.
+     * @return The time, in seconds, before the leaf starts moving in the wind.
+     */
+    public float getLeafAnimationDelay(int index, int leaf) {
+        return leafAnimationDelays.get(index * leavesPerTree + leaf);
+    }
+
+    /**
+     * @param index - The index of a column within the chunk.
+     * @param leaf  - The index of a leaf of the tree.
+     * @return The time, in seconds, before the leaf falls for the first time.
+     */
+    public int getLeafFallDelay(int index, int leaf) {
+        return leafFallDelays.get(index * leavesPerTree + leaf);
+    }
+
+    /**
+     * @param index - The index of a column within the chunk.
+     * @param leaf  - The index of a leaf of the tree.
+     * @return The seed of the random the leaf respawns by.
+     */
+    public int getLeafSeed(int index, int leaf) {
+        return leafSeeds.get(index * leavesPerTree + leaf);
+    }
+}
@@ -2,7 +2,6 @@ package pepse.world.trees;
 
 import danogl.GameObject;
 import danogl.collisions.GameObjectCollection;
-import danogl.gui.rendering.RectangleRenderable;
 import danogl.util.Vector2;
 import pepse.util.ColorSupplier;
 import pepse.world.Block;
@@ -22,6 +21,7 @@ public class Trunk {
     private final int trunkLayer;
     private final int treeHeight;
     private static final Color BASE_TRUNK_COLOR = new Color(100, 50, 20);
+    private final GameObject[] trunkBlocks;
 
 
     /**
@@ -40,6 +40,7 @@ public class Trunk {
         this.groundHeightAtFunc = groundHeightAtFunc;
         this.trunkLayer = trunkLayer;
         this.treeHeight = treeHeight;
+        this.trunkBlocks = new GameObject[treeHeight];
         createTrunk();
     }
 
@@ -48,9 +49,35 @@ public class Trunk {
         for (int j = 1; j <= treeHeight; j++) {
             GameObject trunk_block = new Block(new Vector2(treeX,
                     groundHeightAtFunc.apply((float) treeX) - j * Block.SIZE),
-                    new RectangleRenderable(ColorSupplier.approximateColor(BASE_TRUNK_COLOR)));
+                    ColorSupplier.approximateRectangle(BASE_TRUNK_COLOR));
             trunk_block.setTag(TRUNK_TAG);
             gameObject.addGameObject(trunk_block, trunkLayer);
+            trunkBlocks[j - 1] = trunk_block;
+        }
+    }
+
+    /**
+     * @return The number of blocks the trunk is made of.
+     */
+    public int getBlockCount() {
+        return trunkBlocks.length;
+    }
+
+    /**
+     * Adds the blocks of this trunk back to the game, after they were removed by removeFromGame.
+     */
+    public void addToGame() {
+        for (GameObject trunkBlock : trunkBlocks) {
+            gameObject.addGameObject(trunkBlock, trunkLayer);
+        }
+    }
+
+    /**
+     * Removes the blocks of this trunk from the game, the blocks are kept so the trunk can be revived.
+     */
+    public void removeFromGame() {
+        for (GameObject trunkBlock : trunkBlocks) {
+            gameObject.removeGameObject(trunkBlock, trunkLayer);
         }
     }
 }